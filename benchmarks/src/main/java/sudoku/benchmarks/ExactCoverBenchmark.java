@@ -0,0 +1,85 @@
+package sudoku.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import sudoku.ExactCover;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//The dense byte[][] API on generated instances: every pair of 10 points, whose 945 solutions are the perfect
+//matchings, and the exact cover matrix of the hard puzzle, which has a single solution.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExactCoverBenchmark
+{
+    @Param({"matchings", "sudoku"})
+    public String Instance;
+
+    private byte[][] Matrix;
+
+    @Setup
+    public void Setup()
+    {
+        Matrix = Instance.equals("matchings") ? Matchings(10) : SudokuMatrix(Puzzles.Get("hard"));
+    }
+
+    @Benchmark
+    public List<HashSet<Integer>> GetAllSolutions()
+    {
+        return new ExactCover().GetAllSolutions(Matrix);
+    }
+
+    @Benchmark
+    public HashSet<Integer> GetFirstSolution()
+    {
+        return new ExactCover().GetFirstSolution(Matrix);
+    }
+
+    @Benchmark
+    public boolean MoreThanOneSolution()
+    {
+        return new ExactCover().MoreThanOneSolution(Matrix);
+    }
+
+    private static byte[][] Matchings(int points)
+    {
+        byte[][] matrix = new byte[points][points * (points - 1) / 2];
+        int row = 0;
+        for (int a = 0; a < points; a++)
+        {
+            for (int b = a + 1; b < points; b++)
+            {
+                matrix[a][row] = 1;
+                matrix[b][row] = 1;
+                row++;
+            }
+        }
+        return matrix;
+    }
+
+    private static byte[][] SudokuMatrix(byte[][] puzzle)
+    {
+        byte[][] matrix = new byte[324][729];
+        for (int i = 0; i < 9; i++)
+        {
+            for (int j = 0; j < 9; j++)
+            {
+                for (int z = 0; z < 9; z++)
+                {
+                    if (puzzle[i][j] != 0 && puzzle[i][j] != z + 1) continue;
+                    int row = (i * 81) + (j * 9) + z;
+                    matrix[(i * 9) + j][row] = 1;
+                    matrix[81 + (i * 9) + z][row] = 1;
+                    matrix[162 + (j * 9) + z][row] = 1;
+                    matrix[243 + (27 * (i / 3)) + (9 * (j / 3)) + z][row] = 1;
+                }
+            }
+        }
+        return matrix;
+    }
+}
@@ -0,0 +1,42 @@
+package sudoku.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import sudoku.ExactCoverEngine;
+import sudoku.Sudoku;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GenerateBenchmark
+{
+    private Sudoku Sudoku;
+
+    @Setup
+    public void Setup()
+    {
+        Sudoku = new Sudoku(new ExactCoverEngine(), 1);
+    }
+
+    @Benchmark
+    public byte[][] GenerateRandomCompleteGrid()
+    {
+        return Sudoku.GenerateRandomCompleteGrid();
+    }
+
+    @Benchmark
+    public byte[][] GeneratePuzzleWithClues()
+    {
+        return Sudoku.GeneratePuzzleWithClues(30);
+    }
+
+    @Benchmark
+    public byte[][] DigPuzzleWithClues()
+    {
+        return Sudoku.DigPuzzleWithClues(26);
+    }
+}
@@ -0,0 +1,33 @@
+package sudoku.benchmarks;
+
+//Standard puzzles for the benchmarks, 81 characters each with 0 for empty cells.
+final class Puzzles
+{
+    static final String Easy = "620310098000000010105802630082000000003009480510700020000051000030070059400203060";
+    //The first of Gordon Royle's 17-clue puzzles.
+    static final String Seventeen = "000000010400000000020000000000050407008000300001090000300400200050100000000806000";
+    //Arto Inkala's "world's hardest Sudoku".
+    static final String Hard = "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+
+    private Puzzles()
+    {
+    }
+
+    static byte[][] Get(String name)
+    {
+        switch (name)
+        {
+            case "easy": return Parse(Easy);
+            case "seventeen": return Parse(Seventeen);
+            case "hard": return Parse(Hard);
+            default: throw new IllegalArgumentException("Unknown puzzle " + name);
+        }
+    }
+
+    static byte[][] Parse(String puzzle)
+    {
+        byte[][] grid = new byte[9][9];
+        for (int k = 0; k < 81; k++) grid[k / 9][k % 9] = (byte)(puzzle.charAt(k) - '0');
+        return grid;
+    }
+}
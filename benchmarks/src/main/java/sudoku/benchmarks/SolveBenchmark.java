@@ -0,0 +1,39 @@
+package sudoku.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import sudoku.BitboardEngine;
+import sudoku.ExactCoverEngine;
+import sudoku.Sudoku;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolveBenchmark
+{
+    @Param({"easy", "seventeen", "hard"})
+    public String Puzzle;
+
+    @Param({"exactcover", "bitboard"})
+    public String Engine;
+
+    private Sudoku Sudoku;
+    private byte[][] Grid;
+
+    @Setup
+    public void Setup()
+    {
+        Sudoku = new Sudoku(Engine.equals("bitboard") ? new BitboardEngine() : new ExactCoverEngine());
+        Grid = Puzzles.Get(Puzzle);
+    }
+
+    @Benchmark
+    public byte[][] Solve()
+    {
+        return Sudoku.Solve(Grid);
+    }
+}
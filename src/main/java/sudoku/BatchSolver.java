@@ -0,0 +1,244 @@
+package sudoku;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+//Solves files of 9x9 puzzles, one 81 character puzzle per line with 0 or . for empty cells.
+//The file is memory mapped and parsed straight from the mapped bytes in chunks, which are solved on a fixed pool.
+//Only a bounded number of chunks are in flight, and results are written in input order as each chunk completes.
+//Each output line is either the 81 digit solution or a verdict: unique, multiple, none, invalid or timeout.
+//Blank lines are invalid too, so output line n always answers input line n.
+public class BatchSolver
+{
+    private static final int PuzzlesPerChunk = 4096;
+    private static final long MappedWindow = 1L << 28;
+    private static final byte Invalid = -1; //Marks an unparseable line in the first cell of a chunk slot.
+
+    private final Supplier<SolverEngine> EngineFactory;
+    private final int Threads;
+    private final boolean VerdictsOnly;
+    private final long TimeoutMillis;
+
+    public static class Summary
+    {
+        public final long Puzzles;
+        public final long ElapsedNanos;
+
+        Summary(long puzzles, long elapsedNanos)
+        {
+            Puzzles = puzzles;
+            ElapsedNanos = elapsedNanos;
+        }
+
+        public double PuzzlesPerSecond()
+        {
+            return ElapsedNanos == 0 ? 0 : Puzzles * 1e9 / ElapsedNanos;
+        }
+    }
+
+    //engineFactory is called once per pool thread, which solves every chunk it takes on that engine.
+    //With verdictsOnly the uniqueness verdict is written even for puzzles with a unique solution.
+    public BatchSolver(Supplier<SolverEngine> engineFactory, int threads, boolean verdictsOnly)
+    {
+        this(engineFactory, threads, verdictsOnly, 0);
+    }
+
+    //Each puzzle gets timeoutMillis to settle its verdict, or none if 0, so one adversarial puzzle cannot hold up a worker.
+    public BatchSolver(Supplier<SolverEngine> engineFactory, int threads, boolean verdictsOnly, long timeoutMillis)
+    {
+        if (threads < 1) throw new IllegalArgumentException("At least one thread is required.");
+        if (timeoutMillis < 0) throw new IllegalArgumentException("The timeout cannot be negative.");
+        EngineFactory = engineFactory;
+        Threads = threads;
+        VerdictsOnly = verdictsOnly;
+        TimeoutMillis = timeoutMillis;
+    }
+
+    public Summary Run(Path input, Path output) throws IOException
+    {
+        long start = System.nanoTime();
+        long puzzles = 0;
+
+        ExecutorService pool = Executors.newFixedThreadPool(Threads);
+        ThreadLocal<SolverEngine> engines = ThreadLocal.withInitial(EngineFactory);
+        ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ);
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(output), 1 << 16))
+        {
+            long size = channel.size();
+            long position = 0;
+            byte[] chunk = new byte[PuzzlesPerChunk * 81];
+            int count = 0;
+
+            while (position < size)
+            {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MappedWindow, size - position));
+                int limit = window.limit();
+                boolean lastWindow = position + limit == size;
+
+                int lineStart = 0;
+                while (lineStart < limit)
+                {
+                    int lineEnd = lineStart;
+                    while (lineEnd < limit && window.get(lineEnd) != '\n') lineEnd++;
+                    if (lineEnd == limit && !lastWindow)
+                    {
+                        if (lineStart == 0) throw new IOException("Line at byte " + position + " is too long.");
+                        break; //The line continues past this window, map again from its start.
+                    }
+
+                    int end = lineEnd;
+                    if (end > lineStart && window.get(end - 1) == '\r') end--;
+                    Parse(window, lineStart, end, chunk, count * 81);
+                    if (++count == PuzzlesPerChunk)
+                    {
+                        Submit(pool, engines, pending, chunk, count, out);
+                        puzzles += count;
+                        chunk = new byte[PuzzlesPerChunk * 81];
+                        count = 0;
+                    }
+                    lineStart = lineEnd + 1;
+                }
+                position += Math.min(lineStart, limit);
+            }
+
+            if (count > 0)
+            {
+                Submit(pool, engines, pending, chunk, count, out);
+                puzzles += count;
+            }
+            while (!pending.isEmpty()) out.write(Take(pending));
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+
+        return new Summary(puzzles, System.nanoTime() - start);
+    }
+
+    private static void Parse(MappedByteBuffer window, int start, int end, byte[] chunk, int offset)
+    {
+        if (end - start != PuzzleCodec.Cells || !PuzzleCodec.Parse(window, start, chunk, offset)) chunk[offset] = Invalid;
+    }
+
+    //Blocks on the oldest chunk once enough are in flight, so neither the queue nor the output buffer grows unbounded.
+    private void Submit(ExecutorService pool, ThreadLocal<SolverEngine> engines, ArrayDeque<Future<byte[]>> pending,
+                        byte[] chunk, int count, OutputStream out) throws IOException
+    {
+        if (pending.size() >= Threads * 2) out.write(Take(pending));
+        pending.add(pool.submit(() -> SolveChunk(engines.get(), chunk, count)));
+    }
+
+    private static byte[] Take(ArrayDeque<Future<byte[]>> pending) throws IOException
+    {
+        try
+        {
+            return pending.poll().get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while solving.", e);
+        }
+        catch (ExecutionException e)
+        {
+            throw new IOException("Solving failed.", e.getCause());
+        }
+    }
+
+    private byte[] SolveChunk(SolverEngine engine, byte[] chunk, int count)
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(count * 82);
+        byte[] solution = new byte[81];
+        byte[] line = new byte[82];
+        line[81] = '\n';
+
+        for (int p = 0; p < count; p++)
+        {
+            int offset = p * 81;
+            String verdict;
+            if (chunk[offset] == Invalid) verdict = "invalid";
+            else
+            {
+                int solutions;
+                try
+                {
+                    solutions = engine.Solve(chunk, offset, 9, solution, 0, 2, TimeoutMillis == 0 ? null : new SearchBudget(TimeoutMillis, TimeUnit.MILLISECONDS));
+                }
+                catch (IllegalArgumentException e)
+                {
+                    solutions = -1;
+                }
+                catch (SearchStoppedException e)
+                {
+                    solutions = -2;
+                }
+                verdict = solutions == 1 ? "unique" : solutions > 1 ? "multiple" : solutions == 0 ? "none" : solutions == -1 ? "invalid" : "timeout";
+
+                if (solutions == 1 && !VerdictsOnly)
+                {
+                    PuzzleCodec.Format(solution, 0, line, 0, PuzzleCodec.Zeros);
+                    out.write(line, 0, 82);
+                    continue;
+                }
+            }
+
+            for (int k = 0; k < verdict.length(); k++) out.write(verdict.charAt(k));
+            out.write('\n');
+        }
+        return out.toByteArray();
+    }
+
+    //Usage: BatchSolver input output [--verdicts] [--bitboard] [--threads n] [--cache entries] [--timeout ms]
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 2)
+        {
+            System.out.println("Usage: BatchSolver input output [--verdicts] [--bitboard] [--threads n] [--cache entries] [--timeout ms]");
+            return;
+        }
+
+        boolean verdictsOnly = false;
+        boolean bitboard = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int cacheEntries = 0;
+        long timeoutMillis = 0;
+        for (int a = 2; a < args.length; a++)
+        {
+            if (args[a].equals("--verdicts")) verdictsOnly = true;
+            else if (args[a].equals("--bitboard")) bitboard = true;
+            else if (args[a].equals("--threads")) threads = Integer.parseInt(args[++a]);
+            else if (args[a].equals("--cache")) cacheEntries = Integer.parseInt(args[++a]);
+            else if (args[a].equals("--timeout")) timeoutMillis = Long.parseLong(args[++a]);
+            else throw new IllegalArgumentException("Unknown option " + args[a]);
+        }
+
+        Supplier<SolverEngine> engineFactory = bitboard ? BitboardEngine::new : ExactCoverEngine::new;
+        SolutionCache cache = cacheEntries > 0 ? new SolutionCache(cacheEntries) : null;
+        if (cache != null)
+        {
+            Supplier<SolverEngine> uncached = engineFactory;
+            engineFactory = () -> new CachingEngine(uncached.get(), cache);
+        }
+        Summary summary = new BatchSolver(engineFactory, threads, verdictsOnly, timeoutMillis).Run(Paths.get(args[0]), Paths.get(args[1]));
+        System.out.println("Solved " + summary.Puzzles + " puzzles in " + (summary.ElapsedNanos / 1_000_000) + " ms ("
+            + Math.round(summary.PuzzlesPerSecond()) + " puzzles/s).");
+        if (cache != null) System.out.println("Cache hits: " + cache.getHits() + ", misses: " + cache.getMisses() + ".");
+    }
+}
@@ -0,0 +1,210 @@
+package sudoku;
+
+import java.util.Arrays;
+
+//Specialised to classic 9x9 Sudoku. Each row, column and box keeps a 9-bit mask of the digits placed in it,
+//bit z standing for digit z + 1, so the candidates of a cell are whatever none of its three units has used.
+//Naked and hidden singles are propagated before branching on the cell with the fewest candidates.
+//Not thread safe, the search state is reused between calls.
+public class BitboardEngine implements SolverEngine
+{
+    private static final int AllDigits = 0x1FF;
+    private static final int Masks = 81; //Offset of the unit masks in a state: 9 rows, 9 columns, then 9 boxes.
+    private static final int StateLength = Masks + 27;
+
+    private static final int[][] Units = new int[27][9];
+    private static final int[] RowOf = new int[81];
+    private static final int[] ColumnOf = new int[81];
+    private static final int[] BoxOf = new int[81];
+
+    static
+    {
+        for (int cell = 0; cell < 81; cell++)
+        {
+            int i = cell / 9;
+            int j = cell % 9;
+            int box = (3 * (i / 3)) + (j / 3);
+            RowOf[cell] = i;
+            ColumnOf[cell] = 9 + j;
+            BoxOf[cell] = 18 + box;
+            Units[i][j] = cell;
+            Units[9 + j][i] = cell;
+            Units[18 + box][(3 * (i % 3)) + (j % 3)] = cell;
+        }
+    }
+
+    //One state per depth, every branch places at least one digit so the depth is at most 81.
+    private final int[][] States = new int[82][StateLength];
+    private final byte[] Found = new byte[81]; //The first solution, row by row.
+    private boolean Record;
+    private int Limit;
+    private int Count;
+    private SearchBudget Budget;
+    private SearchStatus Status;
+
+    public int Solve(byte[][] grid, byte[][] solution, int limit, SearchBudget budget)
+    {
+        if (grid.length != 9) throw new IllegalArgumentException("Only 9x9 grids are supported.");
+        for (byte[] row : grid) if (row.length != 9) throw new IllegalArgumentException("The grid must be square.");
+
+        int[] state = States[0];
+        Arrays.fill(state, 0);
+        for (int cell = 0; cell < 81; cell++) Give(state, cell, grid[cell / 9][cell % 9]);
+
+        int solutions = Search(solution != null, limit, budget);
+        if (solutions > 0 && solution != null)
+        {
+            for (int i = 0; i < 9; i++) System.arraycopy(Found, i * 9, solution[i], 0, 9);
+        }
+        return Finish(solutions);
+    }
+
+    //Flat grids are the engine's own layout, so nothing is copied beyond the solution itself.
+    @Override
+    public int Solve(byte[] grid, int gridOffset, int size, byte[] solution, int solutionOffset, int limit, SearchBudget budget)
+    {
+        if (size != 9) throw new IllegalArgumentException("Only 9x9 grids are supported.");
+        ExactCoverEngine.CheckCells(grid, gridOffset, 81);
+        if (solution != null) ExactCoverEngine.CheckCells(solution, solutionOffset, 81);
+
+        int[] state = States[0];
+        Arrays.fill(state, 0);
+        for (int cell = 0; cell < 81; cell++) Give(state, cell, grid[gridOffset + cell]);
+
+        int solutions = Search(solution != null, limit, budget);
+        if (solutions > 0 && solution != null) System.arraycopy(Found, 0, solution, solutionOffset, 81);
+        return Finish(solutions);
+    }
+
+    private static void Give(int[] state, int cell, int digit)
+    {
+        if (digit == 0) return;
+        if (digit < 0 || digit > 9)
+            throw new IllegalArgumentException("The clue at row " + (cell / 9) + ", column " + (cell % 9) + " is out of range.");
+        if ((Candidates(state, cell) & (1 << (digit - 1))) == 0)
+            throw new IllegalArgumentException("The clue at row " + (cell / 9) + ", column " + (cell % 9) + " conflicts with another clue.");
+        Place(state, cell, digit);
+    }
+
+    private int Search(boolean record, int limit, SearchBudget budget)
+    {
+        Record = record;
+        Limit = limit;
+        Count = 0;
+        Budget = budget;
+        Status = SearchStatus.Complete;
+        Search(0);
+        Budget = null;
+        return Count;
+    }
+
+    private int Finish(int solutions)
+    {
+        if (Status != SearchStatus.Complete) throw new SearchStoppedException(Status, solutions);
+        return solutions;
+    }
+
+    private void Search(int depth)
+    {
+        if (Budget != null && (Status = Budget.Check()) != SearchStatus.Complete) return;
+        int[] state = States[depth];
+        if (!Propagate(state)) return;
+
+        int bestCell = -1;
+        int bestCount = 10;
+        for (int cell = 0; cell < 81 && bestCount > 2; cell++)
+        {
+            if (state[cell] != 0) continue;
+            int count = Integer.bitCount(Candidates(state, cell));
+            if (count < bestCount)
+            {
+                bestCell = cell;
+                bestCount = count;
+            }
+        }
+
+        if (bestCell == -1) //Every cell is filled
+        {
+            if (Count++ == 0 && Record)
+            {
+                for (int cell = 0; cell < 81; cell++) Found[cell] = (byte)state[cell];
+            }
+            return;
+        }
+
+        int[] next = States[depth + 1];
+        for (int candidates = Candidates(state, bestCell); candidates != 0 && Count < Limit && Status == SearchStatus.Complete; candidates &= candidates - 1)
+        {
+            System.arraycopy(state, 0, next, 0, StateLength);
+            Place(next, bestCell, Integer.numberOfTrailingZeros(candidates) + 1);
+            Search(depth + 1);
+        }
+    }
+
+    //Applies naked and hidden singles until nothing changes. Returns false on a contradiction.
+    private static boolean Propagate(int[] state)
+    {
+        boolean changed = true;
+        while (changed)
+        {
+            changed = false;
+
+            for (int cell = 0; cell < 81; cell++)
+            {
+                if (state[cell] != 0) continue;
+                int candidates = Candidates(state, cell);
+                if (candidates == 0) return false;
+                if ((candidates & (candidates - 1)) == 0) //Naked single
+                {
+                    Place(state, cell, Integer.numberOfTrailingZeros(candidates) + 1);
+                    changed = true;
+                }
+            }
+
+            for (int unit = 0; unit < 27; unit++)
+            {
+                int once = 0;
+                int twice = 0;
+                for (int cell : Units[unit])
+                {
+                    if (state[cell] != 0) continue;
+                    int candidates = Candidates(state, cell);
+                    twice |= once & candidates;
+                    once |= candidates;
+                }
+
+                int placed = state[Masks + unit];
+                if ((once | placed) != AllDigits) return false; //A digit has nowhere left to go.
+
+                for (int hidden = once & ~twice & ~placed; hidden != 0; hidden &= hidden - 1) //Hidden singles
+                {
+                    int bit = hidden & -hidden;
+                    for (int cell : Units[unit])
+                    {
+                        if (state[cell] == 0 && (Candidates(state, cell) & bit) != 0)
+                        {
+                            Place(state, cell, Integer.numberOfTrailingZeros(bit) + 1);
+                            changed = true;
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int Candidates(int[] state, int cell)
+    {
+        return AllDigits & ~(state[Masks + RowOf[cell]] | state[Masks + ColumnOf[cell]] | state[Masks + BoxOf[cell]]);
+    }
+
+    private static void Place(int[] state, int cell, int digit)
+    {
+        int bit = 1 << (digit - 1);
+        state[cell] = digit;
+        state[Masks + RowOf[cell]] |= bit;
+        state[Masks + ColumnOf[cell]] |= bit;
+        state[Masks + BoxOf[cell]] |= bit;
+    }
+}
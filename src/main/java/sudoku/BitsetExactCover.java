@@ -0,0 +1,160 @@
+package sudoku;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+//Algorithm X over bitsets, for matrices small or dense enough that linking every 1 costs more than the search.
+//Each row keeps the set of its columns and each column the set of its rows, as 64-bit words. Covering a row is
+//then a handful of AND NOTs into the next level's copy of the open columns and remaining rows, uncovering is
+//just going back a level, and column sizes are popcounts. The choices match ExactCover's in natural order:
+//the first smallest column, then its rows in order, so solutions come out in the same order.
+final class BitsetExactCover
+{
+    private static final int MaxRows = 64 * 64;
+    private static final int MaxColumns = 1024;
+    private static final int SmallCells = 1 << 16;
+
+    private final int Columns;
+    private final int RowWords;
+    private final int ColumnWords;
+    private final long[][] RowColumns;
+    private final long[][] ColumnRows;
+    //The open columns and remaining rows at each depth, one level after another.
+    private final long[] OpenColumns;
+    private final long[] ActiveRows;
+    private final int[] Choices;
+
+    private int Limit;
+    private int Count;
+    private List<HashSet<Integer>> Solutions;
+
+    //Small matrices always suit bitsets, larger ones only if at least one entry in eight is a 1.
+    static boolean Suits(byte[][] input)
+    {
+        int columns = input.length;
+        if (columns == 0 || columns > MaxColumns) return false;
+        int rows = input[0].length;
+        if (rows > MaxRows) return false;
+
+        long cells = (long)rows * columns;
+        if (cells <= SmallCells) return true;
+        long ones = 0;
+        for (byte[] column : input) for (byte value : column) if (value != 0) ones++;
+        return ones * 8 >= cells;
+    }
+
+    //The dense layout of ExactCover, input[column][row].
+    BitsetExactCover(byte[][] input)
+    {
+        Columns = input.length;
+        int rows = input[0].length;
+        RowWords = (rows + 63) >>> 6;
+        ColumnWords = (Columns + 63) >>> 6;
+        RowColumns = new long[rows][ColumnWords];
+        ColumnRows = new long[Columns][RowWords];
+        for (int i = 0; i < Columns; i++)
+        {
+            for (int j = 0; j < rows; j++)
+            {
+                if (input[i][j] == 0) continue;
+                RowColumns[j][i >>> 6] |= 1L << i;
+                ColumnRows[i][j >>> 6] |= 1L << j;
+            }
+        }
+
+        //Every choice covers at least one column, so there are at most Columns levels below the first.
+        OpenColumns = new long[(Columns + 1) * ColumnWords];
+        ActiveRows = new long[(Columns + 1) * RowWords];
+        Choices = new int[Columns];
+        for (int i = 0; i < Columns; i++) OpenColumns[i >>> 6] |= 1L << i;
+        for (int j = 0; j < rows; j++) ActiveRows[j >>> 6] |= 1L << j;
+    }
+
+    List<HashSet<Integer>> Solutions(int limit)
+    {
+        Solutions = new ArrayList<>();
+        SearchForSolutions(limit);
+        return Solutions;
+    }
+
+    int Count(int limit)
+    {
+        Solutions = null;
+        return SearchForSolutions(limit);
+    }
+
+    private int SearchForSolutions(int limit)
+    {
+        Limit = limit;
+        Count = 0;
+        Search(0);
+        return Count;
+    }
+
+    private void Search(int depth)
+    {
+        int columns = depth * ColumnWords;
+        int rows = depth * RowWords;
+
+        int smallestColumn = -1;
+        int smallestSize = Integer.MAX_VALUE;
+        for (int w = 0; w < ColumnWords && smallestSize > 0; w++)
+        {
+            for (long open = OpenColumns[columns + w]; open != 0 && smallestSize > 0; open &= open - 1)
+            {
+                int column = (w << 6) + Long.numberOfTrailingZeros(open);
+                long[] columnRows = ColumnRows[column];
+                int size = 0;
+                for (int k = 0; k < RowWords; k++) size += Long.bitCount(columnRows[k] & ActiveRows[rows + k]);
+                if (size < smallestSize)
+                {
+                    smallestColumn = column;
+                    smallestSize = size;
+                }
+            }
+        }
+
+        if (smallestColumn == -1) //No columns remain to be covered
+        {
+            if (Solutions != null)
+            {
+                HashSet<Integer> solution = new HashSet<>();
+                for (int i = 0; i < depth; i++) solution.add(Choices[i]);
+                Solutions.add(solution);
+            }
+            Count++;
+            return;
+        }
+
+        long[] candidates = ColumnRows[smallestColumn];
+        for (int k = 0; k < RowWords && Count < Limit; k++)
+        {
+            for (long rowBits = candidates[k] & ActiveRows[rows + k]; rowBits != 0 && Count < Limit; rowBits &= rowBits - 1)
+            {
+                int row = (k << 6) + Long.numberOfTrailingZeros(rowBits);
+                Choices[depth] = row;
+                Cover(row, columns, rows);
+                Search(depth + 1);
+            }
+        }
+    }
+
+    //Writes the next level: the row's columns closed and every row sharing one of them removed.
+    private void Cover(int row, int columns, int rows)
+    {
+        long[] rowColumns = RowColumns[row];
+        int nextColumns = columns + ColumnWords;
+        int nextRows = rows + RowWords;
+        System.arraycopy(ActiveRows, rows, ActiveRows, nextRows, RowWords);
+        for (int w = 0; w < ColumnWords; w++)
+        {
+            OpenColumns[nextColumns + w] = OpenColumns[columns + w] & ~rowColumns[w];
+            for (long covered = rowColumns[w]; covered != 0; covered &= covered - 1)
+            {
+                long[] columnRows = ColumnRows[(w << 6) + Long.numberOfTrailingZeros(covered)];
+                for (int k = 0; k < RowWords; k++) ActiveRows[nextRows + k] &= ~columnRows[k];
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package sudoku;
+
+//Answers repeated puzzles, and puzzles equivalent to earlier ones under the Sudoku symmetries, from a SolutionCache.
+//Each puzzle is reduced to its CanonicalForm, a cached solution is mapped back through the same transform, and
+//misses are solved by the wrapped engine. Only classic rules survive those symmetries, so variants cannot be cached.
+//Not thread safe if the wrapped engine is not, give each thread its own CachingEngine over a shared cache.
+public class CachingEngine implements SolverEngine
+{
+    private final SolverEngine Engine;
+    private final SolutionCache Cache;
+
+    public CachingEngine(SolverEngine engine, SolutionCache cache)
+    {
+        if (engine instanceof ExactCoverEngine && !((ExactCoverEngine)engine).IsClassic())
+            throw new IllegalArgumentException("Only engines for classic Sudoku can be cached.");
+        Engine = engine;
+        Cache = cache;
+    }
+
+    //A search stopped by its budget is not cached.
+    public int Solve(byte[][] grid, byte[][] solution, int limit, SearchBudget budget)
+    {
+        CanonicalForm form = CanonicalForm.Of(grid);
+        SolutionCache.Entry entry = Cache.Get(form.Grid, limit);
+        if (entry == null)
+        {
+            //The original grid is solved, not the canonical one, so errors name the caller's rows and columns.
+            int size = grid.length;
+            byte[][] found = new byte[size][size];
+            int solutions;
+            try
+            {
+                solutions = Engine.Solve(grid, found, limit, budget);
+            }
+            catch (SearchStoppedException e)
+            {
+                if (e.Solutions > 0 && solution != null) for (int i = 0; i < size; i++) System.arraycopy(found[i], 0, solution[i], 0, size);
+                throw e;
+            }
+            entry = new SolutionCache.Entry(solutions, limit, solutions > 0 ? form.ToCanonical(found) : null);
+            Cache.Put(form.Grid, entry);
+        }
+
+        if (solution != null && entry.Solution != null) form.ToOriginal(entry.Solution, solution);
+        return Math.min(entry.Solutions, limit);
+    }
+}
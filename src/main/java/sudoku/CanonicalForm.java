@@ -0,0 +1,176 @@
+package sudoku;
+
+//A representative of a grid under the symmetries that preserve classic Sudoku: transposition, swapping bands or
+//stacks, swapping rows within a band or columns within a stack, and relabelling the digits.
+//Lines are ordered by clue counts, which those symmetries only permute, with ties kept in their original order.
+//Equivalent grids that tie usually still meet, but not always. That only costs a cache hit, because the form is
+//always an exact transform of its grid and can be mapped back.
+final class CanonicalForm
+{
+    final byte[] Grid; //Row by row.
+
+    private final int Size;
+    private final boolean Transposed;
+    private final int[] RowOf;    //Original row, of the transposed grid if Transposed, for each canonical row.
+    private final int[] ColumnOf;
+    private final byte[] DigitOf; //Original digit for each canonical digit, 0 stays 0.
+    private final byte[] DigitTo; //Canonical digit for each original digit.
+
+    private CanonicalForm(byte[][] grid, int boxSize, boolean transposed)
+    {
+        int size = boxSize * boxSize;
+        Size = size;
+        Transposed = transposed;
+
+        int[] rowClues = new int[size];
+        int[] columnClues = new int[size];
+        for (int i = 0; i < size; i++)
+        {
+            for (int j = 0; j < size; j++)
+            {
+                if (Cell(grid, i, j) == 0) continue;
+                rowClues[i]++;
+                columnClues[j]++;
+            }
+        }
+
+        //A line's clue count, then the clue counts of the lines crossing it at its clues.
+        long[] rowKeys = new long[size];
+        long[] columnKeys = new long[size];
+        for (int i = 0; i < size; i++)
+        {
+            for (int j = 0; j < size; j++)
+            {
+                if (Cell(grid, i, j) == 0) continue;
+                rowKeys[i] += columnClues[j];
+                columnKeys[j] += rowClues[i];
+            }
+        }
+        for (int k = 0; k < size; k++)
+        {
+            rowKeys[k] += (long)rowClues[k] * (size * size + 1);
+            columnKeys[k] += (long)columnClues[k] * (size * size + 1);
+        }
+        RowOf = Order(rowKeys, boxSize);
+        ColumnOf = Order(columnKeys, boxSize);
+
+        //Digits are numbered in the order they are first read, unused ones after in their own order.
+        Grid = new byte[size * size];
+        DigitOf = new byte[size + 1];
+        DigitTo = new byte[size + 1];
+        int labels = 0;
+        for (int r = 0; r < size; r++)
+        {
+            for (int c = 0; c < size; c++)
+            {
+                byte digit = Cell(grid, RowOf[r], ColumnOf[c]);
+                if (digit == 0) continue;
+                if (DigitTo[digit] == 0)
+                {
+                    DigitTo[digit] = (byte)++labels;
+                    DigitOf[labels] = digit;
+                }
+                Grid[(r * size) + c] = DigitTo[digit];
+            }
+        }
+        for (int digit = 1; digit <= size; digit++)
+        {
+            if (DigitTo[digit] != 0) continue;
+            DigitTo[digit] = (byte)++labels;
+            DigitOf[labels] = (byte)digit;
+        }
+    }
+
+    //Throws IllegalArgumentException for grids that are not a Sudoku board.
+    static CanonicalForm Of(byte[][] grid)
+    {
+        int size = grid.length;
+        int boxSize = ExactCoverEngine.BoxSize(size);
+        for (int i = 0; i < size; i++)
+        {
+            if (grid[i].length != size) throw new IllegalArgumentException("The grid must be square.");
+            for (int j = 0; j < size; j++)
+            {
+                if (grid[i][j] < 0 || grid[i][j] > size)
+                    throw new IllegalArgumentException("The clue at row " + i + ", column " + j + " is out of range.");
+            }
+        }
+
+        CanonicalForm form = new CanonicalForm(grid, boxSize, false);
+        CanonicalForm transposed = new CanonicalForm(grid, boxSize, true);
+        for (int k = 0; k < form.Grid.length; k++)
+        {
+            if (form.Grid[k] != transposed.Grid[k]) return form.Grid[k] < transposed.Grid[k] ? form : transposed;
+        }
+        return form;
+    }
+
+    //Maps a solution of the original grid into canonical form.
+    byte[] ToCanonical(byte[][] solution)
+    {
+        byte[] canonical = new byte[Size * Size];
+        for (int r = 0; r < Size; r++)
+        {
+            for (int c = 0; c < Size; c++) canonical[(r * Size) + c] = DigitTo[Cell(solution, RowOf[r], ColumnOf[c])];
+        }
+        return canonical;
+    }
+
+    //Maps a solution of the canonical grid back onto the original grid.
+    void ToOriginal(byte[] canonical, byte[][] solution)
+    {
+        for (int r = 0; r < Size; r++)
+        {
+            for (int c = 0; c < Size; c++)
+            {
+                byte digit = DigitOf[canonical[(r * Size) + c]];
+                if (Transposed) solution[ColumnOf[c]][RowOf[r]] = digit;
+                else solution[RowOf[r]][ColumnOf[c]] = digit;
+            }
+        }
+    }
+
+    private byte Cell(byte[][] grid, int i, int j)
+    {
+        return Transposed ? grid[j][i] : grid[i][j];
+    }
+
+    //Bands by the total key of their lines, then the lines within each band by key.
+    private static int[] Order(long[] keys, int boxSize)
+    {
+        long[] bandKeys = new long[boxSize];
+        int[] bands = new int[boxSize];
+        for (int band = 0; band < boxSize; band++)
+        {
+            bands[band] = band;
+            for (int k = 0; k < boxSize; k++) bandKeys[band] += keys[(band * boxSize) + k];
+        }
+        Sort(bands, bandKeys);
+
+        int[] lines = new int[boxSize * boxSize];
+        int[] band = new int[boxSize];
+        for (int b = 0; b < boxSize; b++)
+        {
+            for (int k = 0; k < boxSize; k++) band[k] = (bands[b] * boxSize) + k;
+            Sort(band, keys);
+            System.arraycopy(band, 0, lines, b * boxSize, boxSize);
+        }
+        return lines;
+    }
+
+    //Stable insertion sort of indices by their keys, the arrays are at most a few lines long.
+    private static void Sort(int[] indices, long[] keys)
+    {
+        for (int k = 1; k < indices.length; k++)
+        {
+            int index = indices[k];
+            int l = k - 1;
+            while (l >= 0 && keys[indices[l]] > keys[index])
+            {
+                indices[l + 1] = indices[l];
+                l--;
+            }
+            indices[l + 1] = index;
+        }
+    }
+}
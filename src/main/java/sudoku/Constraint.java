@@ -0,0 +1,16 @@
+package sudoku;
+
+//One family of Sudoku rules, turned into exact cover columns. Every placement of a digit in a cell is a row,
+//and a constraint says which of its own columns that row covers. Combine them with ExactCoverEngine.
+public interface Constraint
+{
+    //Number of columns on a board of boxSize^2 x boxSize^2 cells.
+    int Columns(int boxSize);
+
+    //Writes the columns, counting from 0, covered by digit z + 1 at row i, column j into columns from index count.
+    //Returns the new count.
+    int Cover(int boxSize, int i, int j, int z, int[] columns, int count);
+
+    //False when every column must be covered exactly once, true when a column may also be left uncovered.
+    boolean AtMostOnce();
+}
@@ -0,0 +1,239 @@
+package sudoku;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+//The standard constraints and the variant ones, to be combined in an ExactCoverEngine.
+//Classic Sudoku is Cell, Row, Column and Box. X-Sudoku adds Diagonals, Windoku adds Windows,
+//and jigsaw Sudoku replaces Box with Jigsaw regions.
+public final class Constraints
+{
+    private Constraints()
+    {
+    }
+
+    //Classic Sudoku followed by any variant constraints.
+    public static Constraint[] Classic(Constraint... variants)
+    {
+        Constraint[] constraints = new Constraint[4 + variants.length];
+        constraints[0] = Cell();
+        constraints[1] = Row();
+        constraints[2] = Column();
+        constraints[3] = Box();
+        System.arraycopy(variants, 0, constraints, 4, variants.length);
+        return constraints;
+    }
+
+    //Every cell holds exactly one digit.
+    public static Constraint Cell()
+    {
+        return new ExactlyOnce()
+        {
+            public int Columns(int boxSize) { return Cells(boxSize); }
+
+            public int Cover(int boxSize, int i, int j, int z, int[] columns, int count)
+            {
+                columns[count++] = (i * boxSize * boxSize) + j;
+                return count;
+            }
+        };
+    }
+
+    public static Constraint Row()
+    {
+        return new ExactlyOnce()
+        {
+            public int Columns(int boxSize) { return Cells(boxSize); }
+
+            public int Cover(int boxSize, int i, int j, int z, int[] columns, int count)
+            {
+                columns[count++] = (i * boxSize * boxSize) + z;
+                return count;
+            }
+        };
+    }
+
+    public static Constraint Column()
+    {
+        return new ExactlyOnce()
+        {
+            public int Columns(int boxSize) { return Cells(boxSize); }
+
+            public int Cover(int boxSize, int i, int j, int z, int[] columns, int count)
+            {
+                columns[count++] = (j * boxSize * boxSize) + z;
+                return count;
+            }
+        };
+    }
+
+    public static Constraint Box()
+    {
+        return new ExactlyOnce()
+        {
+            public int Columns(int boxSize) { return Cells(boxSize); }
+
+            public int Cover(int boxSize, int i, int j, int z, int[] columns, int count)
+            {
+                int box = (boxSize * (i / boxSize)) + (j / boxSize);
+                columns[count++] = (box * boxSize * boxSize) + z;
+                return count;
+            }
+        };
+    }
+
+    //X-Sudoku: both main diagonals hold every digit once.
+    public static Constraint Diagonals()
+    {
+        return new ExactlyOnce()
+        {
+            public int Columns(int boxSize) { return 2 * boxSize * boxSize; }
+
+            public int Cover(int boxSize, int i, int j, int z, int[] columns, int count)
+            {
+                int size = boxSize * boxSize;
+                if (i == j) columns[count++] = z;
+                if (i + j == size - 1) columns[count++] = size + z;
+                return count;
+            }
+        };
+    }
+
+    //Windoku: the (boxSize - 1)^2 windows that sit one cell in from the boxes, separated by one line of cells,
+    //each hold every digit once. On 9x9 these are the four 3x3 windows starting at rows and columns 1 and 5.
+    public static Constraint Windows()
+    {
+        return new ExactlyOnce()
+        {
+            public int Columns(int boxSize) { return (boxSize - 1) * (boxSize - 1) * boxSize * boxSize; }
+
+            public int Cover(int boxSize, int i, int j, int z, int[] columns, int count)
+            {
+                int r = i - 1;
+                int c = j - 1;
+                int stride = boxSize + 1;
+                if (r < 0 || c < 0 || r % stride == boxSize || c % stride == boxSize) return count;
+                if (r / stride >= boxSize - 1 || c / stride >= boxSize - 1) return count;
+
+                int window = ((r / stride) * (boxSize - 1)) + (c / stride);
+                columns[count++] = (window * boxSize * boxSize) + z;
+                return count;
+            }
+        };
+    }
+
+    //Jigsaw: regions[i][j] numbers the irregular region of each cell from 0. There must be one region per digit,
+    //each of as many cells as there are digits. The regions are copied, so the caller may reuse the array.
+    public static Constraint Jigsaw(byte[][] regions)
+    {
+        int size = regions.length;
+        byte[][] copy = new byte[size][];
+        for (int i = 0; i < size; i++) copy[i] = regions[i].clone();
+
+        int[] cellsInRegion = new int[size];
+        for (byte[] row : copy)
+        {
+            if (row.length != size) throw new IllegalArgumentException("The regions must cover a square board.");
+            for (byte region : row)
+            {
+                if (region < 0 || region >= size) throw new IllegalArgumentException("Region " + region + " is out of range.");
+                cellsInRegion[region]++;
+            }
+        }
+        for (int region = 0; region < size; region++)
+        {
+            if (cellsInRegion[region] != size)
+                throw new IllegalArgumentException("Region " + region + " has " + cellsInRegion[region] + " cells instead of " + size + ".");
+        }
+
+        return new ExactlyOnce()
+        {
+            public int Columns(int boxSize)
+            {
+                if (boxSize * boxSize != size) throw new IllegalArgumentException("The regions are for a board of size " + size + ".");
+                return size * size;
+            }
+
+            public int Cover(int boxSize, int i, int j, int z, int[] columns, int count)
+            {
+                columns[count++] = (copy[i][j] * size) + z;
+                return count;
+            }
+        };
+    }
+
+    //Anti-knight: two cells a knight's move apart never hold the same digit.
+    //There is one column per such pair of cells and digit, which may be left uncovered.
+    public static Constraint AntiKnight()
+    {
+        return new Constraint()
+        {
+            //The knight moves that go down the board. Every pair of cells is one of these from its upper cell.
+            private final int[] RowSteps = { 1, 1, 2, 2 };
+            private final int[] ColumnSteps = { -2, 2, -1, 1 };
+            private final ConcurrentHashMap<Integer, int[]> Pairs = new ConcurrentHashMap<>();
+
+            public int Columns(int boxSize)
+            {
+                int[] pairs = Pairs(boxSize);
+                return pairs[pairs.length - 1] * boxSize * boxSize;
+            }
+
+            public int Cover(int boxSize, int i, int j, int z, int[] columns, int count)
+            {
+                int size = boxSize * boxSize;
+                int[] pairs = Pairs(boxSize);
+                for (int move = 0; move < 4; move++)
+                {
+                    int pair = pairs[(((i * size) + j) * 4) + move];
+                    if (pair >= 0) columns[count++] = (pair * size) + z;
+
+                    int i2 = i - RowSteps[move];
+                    int j2 = j - ColumnSteps[move];
+                    if (i2 >= 0 && j2 >= 0 && j2 < size) columns[count++] = (pairs[(((i2 * size) + j2) * 4) + move] * size) + z;
+                }
+                return count;
+            }
+
+            public boolean AtMostOnce()
+            {
+                return true;
+            }
+
+            //Numbers the pair reached by each downward move from each cell, -1 off the board.
+            //The last entry holds the number of pairs.
+            private int[] Pairs(int boxSize)
+            {
+                return Pairs.computeIfAbsent(boxSize, key ->
+                {
+                    int size = boxSize * boxSize;
+                    int[] pairs = new int[(size * size * 4) + 1];
+                    int count = 0;
+                    for (int cell = 0; cell < size * size; cell++)
+                    {
+                        for (int move = 0; move < 4; move++)
+                        {
+                            int i = (cell / size) + RowSteps[move];
+                            int j = (cell % size) + ColumnSteps[move];
+                            pairs[(cell * 4) + move] = i < size && j >= 0 && j < size ? count++ : -1;
+                        }
+                    }
+                    pairs[pairs.length - 1] = count;
+                    return pairs;
+                });
+            }
+        };
+    }
+
+    private static int Cells(int boxSize)
+    {
+        return boxSize * boxSize * boxSize * boxSize;
+    }
+
+    private abstract static class ExactlyOnce implements Constraint
+    {
+        public boolean AtMostOnce()
+        {
+            return false;
+        }
+    }
+}
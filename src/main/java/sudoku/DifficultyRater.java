@@ -0,0 +1,129 @@
+package sudoku;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+//Grades puzzles by how hard the exact cover search has to work on them, rather than by human solving techniques.
+//Each puzzle is searched in natural order for up to two solutions, so the rating also proves it unique and is the
+//same on every run. A puzzle that falls to forced choices alone never guesses and rates 0, every guess and every
+//dead end it leads to raises the rating on a log scale. Batches are rated across a fixed pool of threads.
+public class DifficultyRater implements AutoCloseable
+{
+    private static final int PuzzlesPerTask = 64;
+    private static final int LevelsPerDoubling = 16;
+    public static final int MaxLevel = 255; //Fits the difficulty byte of a PuzzleBank.
+
+    private final ExecutorService Pool;
+    private final int Threads;
+
+    public static class Rating
+    {
+        public final int Solutions;      //Up to 2, the rest only means something when this is 1.
+        public final byte[][] Solution;
+        public final long Nodes;
+        public final long ForcedChoices;
+        public final long Guesses;       //Nodes where the search had more than one row to try.
+        public final long Backtracks;
+        public final int MaxDepth;
+        public final double Score;       //log2 of one more than the guesses and dead ends.
+        public final int Level;          //Score scaled to 0 to MaxLevel.
+
+        Rating(int solutions, byte[][] solution, SearchStatistics statistics)
+        {
+            Solutions = solutions;
+            Solution = solution;
+            Nodes = statistics.Nodes();
+            ForcedChoices = statistics.ForcedChoices();
+            Backtracks = statistics.Backtracks();
+            Guesses = Nodes - ForcedChoices - Backtracks - statistics.Solutions();
+            MaxDepth = statistics.MaxDepth();
+            Score = Math.log(1 + Guesses + Backtracks) / Math.log(2);
+            Level = (int)Math.min(MaxLevel, Math.round(Score * LevelsPerDoubling));
+        }
+
+        //Fraction of the search's choices that were forced.
+        public double ForcedFraction()
+        {
+            long choices = Nodes - Solutions;
+            return choices == 0 ? 1 : (double)ForcedChoices / choices;
+        }
+    }
+
+    public DifficultyRater(int threads)
+    {
+        if (threads < 1) throw new IllegalArgumentException("At least one thread is required.");
+        Pool = Executors.newFixedThreadPool(threads);
+        Threads = threads;
+    }
+
+    public DifficultyRater()
+    {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    //Rates one classic puzzle of any box size on the calling thread.
+    //Throws IllegalArgumentException if the givens conflict.
+    public static Rating Rate(byte[][] puzzle)
+    {
+        SearchStatistics statistics = new SearchStatistics();
+        int size = puzzle.length;
+        byte[][] solution = new byte[size][size];
+        int solutions = new ExactCoverEngine(statistics).Solve(puzzle, solution, 2);
+        return new Rating(solutions, solutions == 0 ? null : solution, statistics);
+    }
+
+    //Rates every puzzle in parallel, returning the ratings in the same order.
+    //A puzzle whose givens conflict has a null rating instead of failing the batch.
+    public Rating[] Rate(List<byte[][]> puzzles)
+    {
+        Rating[] ratings = new Rating[puzzles.size()];
+        int perTask = Math.max(1, Math.min(PuzzlesPerTask, puzzles.size() / (Threads * 4)));
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int start = 0; start < puzzles.size(); start += perTask)
+        {
+            int first = start;
+            int last = Math.min(puzzles.size(), start + perTask);
+            tasks.add(Pool.submit(() ->
+            {
+                for (int p = first; p < last; p++)
+                {
+                    try
+                    {
+                        ratings[p] = Rate(puzzles.get(p));
+                    }
+                    catch (IllegalArgumentException e)
+                    {
+                        ratings[p] = null;
+                    }
+                }
+            }));
+        }
+
+        try
+        {
+            for (Future<?> task : tasks) task.get();
+        }
+        catch (InterruptedException e)
+        {
+            tasks.forEach(task -> task.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rating.", e);
+        }
+        catch (ExecutionException e)
+        {
+            tasks.forEach(task -> task.cancel(true));
+            throw new IllegalStateException("Rating failed.", e.getCause());
+        }
+        return ratings;
+    }
+
+    @Override
+    public void close()
+    {
+        Pool.shutdownNow();
+    }
+}
@@ -1,27 +1,129 @@
 package sudoku;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class ExactCover
 {
-    private class Cell {
-        public Cell Right;
-        public Cell Left;
-        public Cell Up;
-        public Cell Down;
+    //Dancing links are kept in parallel arrays rather than as one object per matrix entry, as in Knuth's dlx1.
+    //Node 0 is the root, nodes 1 to Columns are the column headers, then comes the root of the secondary columns
+    //and every node after that is a 1 in the matrix. Primary columns are linked into the ring of the root and must
+    //be covered exactly once. Secondary columns are linked into their own ring, which the search never picks a column
+    //from, so they may be covered at most once.
+    private static final int Root = 0;
+
+    private int[] Left;
+    private int[] Right;
+    private int[] Up;
+    private int[] Down;
+    private int[] Column; //Header node of the column each node belongs to.
+    private int[] Row;    //Row name of each node, -1 for headers.
+    private int[] Size;   //Indexed by header node.
+
+    private int Columns;
+    private int PrimaryColumns;
+    private int Nodes;
+    private int Rows;
+    private int[] RowStamp; //Indexed by header node, used to reject a column repeated within one row.
+    private int[] RowNode;  //First node of each row, indexed by row name. -1 for rows never added.
+    private boolean Frozen;
+
+    private int[] Choices; //Row name chosen at each depth of the search.
+    private int Selected;  //Rows pre-selected with Select, they occupy the bottom of Choices.
+    private int Propagated; //The last of those, selected by Propagate. Statistics count them as forced choices.
+    private int SolutionLimit;
+    private int SolutionCount;
+    private List<HashSet<Integer>> Solutions; //null when only counting.
+    private int[] FirstSolution;              //Receives the first solution when counting, may be null.
+    private SplittableRandom Random;      //Randomises the search order when set.
+    private int[] Order;                  //Row nodes of the columns being tried, in random order, stacked by depth.
+    private int OrderTop;
+    private AtomicInteger SharedSolutionCount; //Solutions found by every worker of a parallel search, null otherwise.
+    private SearchStatistics Statistics;  //null unless the caller wants to know what the search did.
+    private SearchBudget Budget;          //null to search without limits.
+    private SearchStatus Status = SearchStatus.Complete;
+    private AtomicReference<SearchStatus> SharedStatus; //Why the first worker of a parallel search stopped early.
+
+    //Only for the dense byte[][] methods, which initialise the matrix themselves.
+    public ExactCover()
+    {
+    }
+
+    //Starts an empty sparse problem. Rows are then streamed in with AddRow.
+    public ExactCover(int columns)
+    {
+        this(columns, 0);
+    }
 
-        public int ColumnName; //For debugging
-        public int RowName;
+    //Columns from primaryColumns onwards are secondary: a solution may leave them uncovered.
+    public ExactCover(int primaryColumns, int secondaryColumns)
+    {
+        if (primaryColumns < 0 || secondaryColumns < 0) throw new IllegalArgumentException("Column counts cannot be negative.");
+        Initialise(primaryColumns, secondaryColumns, primaryColumns + secondaryColumns + 2);
     }
 
-    private class ColumnHeader extends Cell
+    //Working copy of another problem, including any rows it has selected.
+    //Only reads the template, so many threads can copy one frozen template at once.
+    public ExactCover(ExactCover template)
     {
-        public int Size;
+        int nodes = template.Nodes;
+        Left = Arrays.copyOf(template.Left, nodes);
+        Right = Arrays.copyOf(template.Right, nodes);
+        Up = Arrays.copyOf(template.Up, nodes);
+        Down = Arrays.copyOf(template.Down, nodes);
+        Column = Arrays.copyOf(template.Column, nodes);
+        Row = Arrays.copyOf(template.Row, nodes);
+        Size = template.Size.clone();
+        RowStamp = template.RowStamp.clone();
+        RowNode = template.RowNode.clone();
+        Choices = template.Choices.clone();
+        Columns = template.Columns;
+        PrimaryColumns = template.PrimaryColumns;
+        Nodes = nodes;
+        Rows = template.Rows;
+        Selected = template.Selected;
+        Propagated = template.Propagated;
     }
 
-    private ColumnHeader Root;
-    private Stack<Integer> Stack;
-    private List<HashSet<Integer>> Solutions;
+    //Visits the rows of each column and breaks ties between equally small columns in random order,
+    //so the first solution found is a random one. Pass null to go back to the natural order.
+    public void SetRandom(SplittableRandom random)
+    {
+        Random = random;
+    }
+
+    //Records every following search into statistics, or stops recording when null. Rows selected by Propagate
+    //are recorded as the forced choices the search would have made for them, ahead of the search's own nodes.
+    //Parallel searches are not recorded, their copies search without statistics.
+    public void SetStatistics(SearchStatistics statistics)
+    {
+        Statistics = statistics;
+    }
+
+    //Bounds every following search by budget, or lifts the bounds when null. A search that runs out stops where it
+    //is, restores its links and returns what it found so far, and Status says why it stopped.
+    public void SetBudget(SearchBudget budget)
+    {
+        Budget = budget;
+    }
+
+    //How the last search ended.
+    public SearchStatus Status()
+    {
+        return Status;
+    }
+
+    //Makes the problem read-only so it can be shared as a template. It can still be copied.
+    public void Freeze()
+    {
+        Frozen = true;
+    }
 
     //Constraints go in rows, not columns when formatting for input!
     //But in the code, constraints are columns. First dimension.
@@ -29,281 +131,769 @@ public class ExactCover
     //But rows can be all zero, they will be ignored.
     private void Initialise(byte[][] input)
     {
-        Root = new ColumnHeader();
-
         int columns = input.length;
         int rows = input[0].length;
-        ColumnHeader[] columnHeaders = new ColumnHeader[columns];
-        for (int i = 0; i < columns; i++)
-        {
-            ColumnHeader columnHeader = new ColumnHeader();
-            columnHeader.ColumnName = i;
-            columnHeaders[i] = columnHeader;
-        }
 
-        Cell[][] cells = new Cell[columns][rows];
+        int ones = 0;
         for (int i = 0; i < columns; i++)
         {
-            ColumnHeader columnHeader = columnHeaders[i];
-            if (i == 0) columnHeader.Left = Root;
-            else columnHeader.Left = columnHeaders[i - 1];
-            if (i == (columns - 1)) columnHeader.Right = Root;
-            else columnHeader.Right = columnHeaders[i + 1];
-
-            //Establish columns
-            Cell previousCell = columnHeader;
             for (int j = 0; j < rows; j++)
             {
-                if (input[i][j] != 0)
-                {
-                    columnHeader.Size++;
-                    Cell cell = new Cell();
-                    cell.ColumnName = i;
-                    cell.RowName = j;
-                    cells[i][j] = cell;
-                    cell.Up = previousCell;
-                    previousCell = cell;
-                }
+                if (input[i][j] != 0) ones++;
             }
-            columnHeader.Up = previousCell;
+        }
+
+        Initialise(columns, 0, columns + 2 + ones);
 
-            //Add down links.
-            columnHeader.Up.Down = columnHeader;
-            Cell current = columnHeader.Up;
-            while (current != columnHeader)
+        int[] rowColumns = new int[columns];
+        for (int j = 0; j < rows; j++)
+        {
+            int count = 0;
+            for (int i = 0; i < columns; i++)
             {
-                current.Up.Down = current;
-                current = current.Up;
+                if (input[i][j] != 0) rowColumns[count++] = i;
             }
+            LinkRow(j, rowColumns, count);
         }
+    }
 
-        Root.Right = columnHeaders[0];
-        Root.Left = columnHeaders[columns - 1];
+    private void Initialise(int primaryColumns, int secondaryColumns, int capacity)
+    {
+        int columns = primaryColumns + secondaryColumns;
+        if (columns <= 0) throw new IllegalArgumentException("At least one column is required.");
+
+        Columns = columns;
+        PrimaryColumns = primaryColumns;
+        Left = new int[capacity];
+        Right = new int[capacity];
+        Up = new int[capacity];
+        Down = new int[capacity];
+        Column = new int[capacity];
+        Row = new int[capacity];
+        Size = new int[columns + 2];
+        RowStamp = new int[columns + 1];
+        RowNode = new int[0];
+        Frozen = false;
+        Selected = 0;
+        Choices = new int[columns]; //Every choice covers at least one column.
+
+        for (int header = 0; header <= columns + 1; header++)
+        {
+            Up[header] = header;
+            Down[header] = header;
+            Column[header] = header;
+            Row[header] = -1;
+        }
+        LinkRing(Root, 1, primaryColumns);
+        LinkRing(columns + 1, primaryColumns + 1, columns);
+        Nodes = columns + 2;
+        Rows = 0;
+    }
 
-        for (int j = 0; j < rows; j++)
+    //Links the headers first to last, which may be none, into a ring with root.
+    private void LinkRing(int root, int first, int last)
+    {
+        int previous = root;
+        for (int header = first; header <= last; header++)
         {
-            Cell firstCellInRow = null;
-            Cell previousCell = null;
-            for (int i = 0; i < columns; i++)
+            Left[header] = previous;
+            Right[previous] = header;
+            previous = header;
+        }
+        Right[previous] = root;
+        Left[root] = previous;
+    }
+
+    //Links a row into the matrix as it arrives, no dense matrix is needed.
+    //Each column holds its cells in the order rows were added.
+    public void AddRow(int rowName, int... columns)
+    {
+        LinkRow(rowName, columns, columns.length);
+    }
+
+    //As above with the row's columns in the first count entries, so one buffer can be reused for every row.
+    public void AddRow(int rowName, int[] columns, int count)
+    {
+        LinkRow(rowName, columns, count);
+    }
+
+    public int Columns()
+    {
+        return Columns;
+    }
+
+    private void LinkRow(int rowName, int[] columns, int count)
+    {
+        if (Left == null) throw new IllegalStateException("Construct with the number of columns before adding rows.");
+        CheckNotFrozen();
+        if (rowName < 0) throw new IllegalArgumentException("Row names cannot be negative.");
+
+        Rows++;
+        for (int i = 0; i < count; i++)
+        {
+            int column = columns[i];
+            if (column < 0 || column >= Columns)
+                throw new IllegalArgumentException("Column " + column + " is out of range.");
+            if (RowStamp[column + 1] == Rows)
+                throw new IllegalArgumentException("Column " + column + " appears twice in row " + rowName + ".");
+            RowStamp[column + 1] = Rows;
+        }
+        EnsureCapacity(Nodes + count);
+        if (count > 0) SetRowNode(rowName, Nodes);
+
+        int firstNodeInRow = -1;
+        for (int i = 0; i < count; i++)
+        {
+            int header = columns[i] + 1;
+            int node = Nodes++;
+            Column[node] = header;
+            Row[node] = rowName;
+
+            Up[node] = Up[header];
+            Down[node] = header;
+            Down[Up[header]] = node;
+            Up[header] = node;
+            Size[header]++;
+
+            if (firstNodeInRow == -1)
             {
-                if (input[i][j] != 0)
-                {
-                    if (firstCellInRow == null)
-                    {
-                        firstCellInRow = cells[i][j];
-                    }
-                    else
-                    {
-                        cells[i][j].Left = previousCell;
-                    }
-                    previousCell = cells[i][j];
-                }
+                firstNodeInRow = node;
+                Left[node] = node;
+                Right[node] = node;
             }
-            if (firstCellInRow != null) //Row could be empty
+            else
             {
-                firstCellInRow.Left = previousCell;
+                Left[node] = Left[firstNodeInRow];
+                Right[node] = firstNodeInRow;
+                Right[Left[firstNodeInRow]] = node;
+                Left[firstNodeInRow] = node;
+            }
+        }
+    }
+
+    private void SetRowNode(int rowName, int node)
+    {
+        if (rowName >= RowNode.length)
+        {
+            int oldLength = RowNode.length;
+            RowNode = Arrays.copyOf(RowNode, Math.max(rowName + 1, oldLength * 2));
+            Arrays.fill(RowNode, oldLength, RowNode.length, -1);
+        }
+        if (RowNode[rowName] != -1) throw new IllegalArgumentException("Row " + rowName + " has already been added.");
+        RowNode[rowName] = node;
+    }
 
-                //Add right links.
-                firstCellInRow.Left.Right = firstCellInRow;
-                Cell current = firstCellInRow.Left;
-                while (current != firstCellInRow)
+    private void CheckNotFrozen()
+    {
+        if (Frozen) throw new IllegalStateException("The problem is frozen, search a copy of it instead.");
+    }
+
+    //Forces a row into every solution by covering its columns before the search starts.
+    //Returns false, leaving the problem unchanged, if the row clashes with one already selected.
+    public boolean Select(int rowName)
+    {
+        CheckNotFrozen();
+        if (rowName < 0 || rowName >= RowNode.length || RowNode[rowName] == -1)
+            throw new IllegalArgumentException("Row " + rowName + " has not been added.");
+
+        int first = RowNode[rowName];
+        int node = first;
+        do
+        {
+            int header = Column[node];
+            if (Right[Left[header]] != header) return false; //Column already covered.
+            node = Right[node];
+        }
+        while (node != first);
+
+        node = first;
+        do
+        {
+            CoverColumn(Column[node]);
+            node = Right[node];
+        }
+        while (node != first);
+
+        Choices[Selected++] = rowName;
+        return true;
+    }
+
+    //Selects the only row left in any primary column, until none has a single row, before a search starts.
+    //For Sudoku these are exactly the naked and hidden singles. The search would make the same choices first,
+    //but afterwards every copy starts from the smaller problem. Returns false, as soon as it finds one,
+    //if some column has no rows left, in which case there is no solution.
+    public boolean Propagate()
+    {
+        CheckNotFrozen();
+        boolean changed = true;
+        while (changed)
+        {
+            changed = false;
+            for (int column = Right[Root]; column != Root; column = Right[column])
+            {
+                if (Size[column] == 0) return false;
+                if (Size[column] == 1)
                 {
-                    current.Left.Right = current;
-                    current = current.Left;
+                    Select(Row[Down[column]]);
+                    Propagated++;
+                    changed = true;
+                    break; //Selecting covers other columns, so walk the ring again from the root.
                 }
             }
         }
+        return true;
     }
 
+    private void EnsureCapacity(int capacity)
+    {
+        if (capacity <= Left.length) return;
+
+        int newCapacity = Math.max(capacity, Left.length * 2);
+        Left = Arrays.copyOf(Left, newCapacity);
+        Right = Arrays.copyOf(Right, newCapacity);
+        Up = Arrays.copyOf(Up, newCapacity);
+        Down = Arrays.copyOf(Down, newCapacity);
+        Column = Arrays.copyOf(Column, newCapacity);
+        Row = Arrays.copyOf(Row, newCapacity);
+    }
+
+    //Small or dense matrices are searched as bitsets instead of being linked, see BitsetExactCover,
+    //unless the search is randomised, recorded or budgeted, which only the links support.
     public boolean MoreThanOneSolution(byte[][] input)
     {
+        BitsetExactCover bitsets = Bitsets(input);
+        if (bitsets != null) return bitsets.Count(2) > 1;
         Initialise(input);
-        SearchForMultipleSolutions(0);
-        return Solutions.size() > 1;
+        return CountSolutions(2) > 1;
     }
 
     public HashSet<Integer> GetFirstSolution(byte[][] input)
     {
+        BitsetExactCover bitsets = Bitsets(input);
+        if (bitsets != null) return bitsets.Solutions(1).get(0);
         Initialise(input);
-        SearchForFirstSolution(0);
+        SearchForSolutions(1);
         return Solutions.get(0);
     }
 
     public boolean CheckExactlyOneSolution(byte[][] input)
     {
-        if (MoreThanOneSolution(input)) return false;
-
+        BitsetExactCover bitsets = Bitsets(input);
+        if (bitsets != null) return bitsets.Count(2) == 1;
         Initialise(input);
-        Search(0);
-        return Solutions.size() == 1;
+        return CountSolutions(2) == 1;
     }
 
     public List<HashSet<Integer>> GetAllSolutions(byte[][] input)
     {
+        BitsetExactCover bitsets = Bitsets(input);
+        if (bitsets != null) return bitsets.Solutions(Integer.MAX_VALUE);
         Initialise(input);
-        Search(0);
+        SearchForSolutions(Integer.MAX_VALUE);
+        return Solutions;
+    }
+
+    private BitsetExactCover Bitsets(byte[][] input)
+    {
+        if (Random != null || Statistics != null || Budget != null || !BitsetExactCover.Suits(input)) return null;
+        Status = SearchStatus.Complete;
+        return new BitsetExactCover(input);
+    }
+
+    //The following search the rows added with AddRow. The links are restored after every search.
+    public boolean MoreThanOneSolution()
+    {
+        return CountSolutions(2) > 1;
+    }
+
+    public HashSet<Integer> GetFirstSolution()
+    {
+        SearchForSolutions(1);
+        return Solutions.isEmpty() ? null : Solutions.get(0); //null when there is no solution.
+    }
+
+    public boolean CheckExactlyOneSolution()
+    {
+        return CountSolutions(2) == 1;
+    }
+
+    public List<HashSet<Integer>> GetAllSolutions()
+    {
+        SearchForSolutions(Integer.MAX_VALUE);
         return Solutions;
     }
 
-    private void Search(int n)
+    public List<HashSet<Integer>> GetSolutions(int limit)
+    {
+        SearchForSolutions(limit);
+        return Solutions;
+    }
+
+    //Counts solutions without recording them, stopping as soon as limit have been found.
+    //Nothing is allocated per solution, so use a limit of 2 to check for uniqueness.
+    public int CountSolutions(int limit)
+    {
+        return CountSolutions(limit, null);
+    }
+
+    //As above, also copying the row names of the first solution into firstSolution.
+    //Entries after its last row are set to -1. It needs room for one row per column.
+    public int CountSolutions(int limit, int[] firstSolution)
+    {
+        if (firstSolution != null && firstSolution.length < Columns)
+            throw new IllegalArgumentException("The first solution needs room for " + Columns + " rows.");
+
+        CheckNotFrozen();
+        Solutions = null;
+        FirstSolution = firstSolution;
+        SolutionCount = 0;
+        SolutionLimit = limit;
+        Status = SearchStatus.Complete;
+        BeginStatistics();
+        Search(Selected);
+        if (Statistics != null) Statistics.End(SolutionCount);
+        FirstSolution = null;
+        return SolutionCount;
+    }
+
+    //Lazy versions, for problems with too many solutions to hold at once. Each solution is the row names it selects,
+    //in the order a sequential search finds them, and nothing is searched until the next one is asked for.
+    //They search their own copy with an explicit stack instead of recursion, so this problem is never modified
+    //and a frozen template can be searched directly. Random order and statistics do not apply to them, a budget
+    //does: the solutions end early if it runs out. Many streams can run over one template at once, so Status is
+    //left alone and the budget's own Status says why they ended.
+    public Iterator<int[]> SolutionIterator()
     {
-        Search(n, false, false);
+        return Spliterators.iterator(new SolutionSpliterator(this));
+    }
+
+    //Splits between parallel consumers by handing out the untried rows of the first column the search would choose,
+    //going deeper when only one is left.
+    public Stream<int[]> SolutionStream()
+    {
+        return StreamSupport.stream(new SolutionSpliterator(this), false);
+    }
+
+    //Parallel versions. The search tree is split into independent subproblems for every choice down to splitDepth,
+    //each searching its own copy of the links on the pool. Solutions are merged in the order a sequential search
+    //would visit the branches, and workers stop early once the limit has been reached between them.
+    //This problem itself is never modified, so a frozen template can be searched directly. Only an unfrozen problem
+    //records in Status why a budget stopped the search, for a shared template ask the budget.
+    public List<HashSet<Integer>> GetAllSolutions(byte[][] input, ForkJoinPool pool, int splitDepth)
+    {
+        Initialise(input);
+        return GetAllSolutions(pool, splitDepth);
+    }
+
+    public boolean MoreThanOneSolution(byte[][] input, ForkJoinPool pool, int splitDepth)
+    {
+        Initialise(input);
+        return MoreThanOneSolution(pool, splitDepth);
     }
 
-    private void SearchForFirstSolution(int n)
+    public List<HashSet<Integer>> GetAllSolutions(ForkJoinPool pool, int splitDepth)
     {
-        Search(n, true, false);
+        return SearchInParallel(pool, splitDepth, Integer.MAX_VALUE);
     }
 
-    private void SearchForMultipleSolutions(int n)
+    public HashSet<Integer> GetFirstSolution(ForkJoinPool pool, int splitDepth)
     {
-        Search(n, false, true);
+        List<HashSet<Integer>> solutions = SearchInParallel(pool, splitDepth, 1);
+        return solutions.isEmpty() ? null : solutions.get(0); //Not necessarily the first a sequential search finds.
     }
 
-    private void Search(int n, boolean getFirstSolution, boolean checkForMultipleSolutions)
+    public boolean MoreThanOneSolution(ForkJoinPool pool, int splitDepth)
     {
-        if (n == 0)
+        return SearchInParallel(pool, splitDepth, 2).size() > 1;
+    }
+
+    private List<HashSet<Integer>> SearchInParallel(ForkJoinPool pool, int splitDepth, int solutionLimit)
+    {
+        if (splitDepth < 0) throw new IllegalArgumentException("The split depth cannot be negative.");
+
+        ExactCover copy = new ExactCover(this);
+        copy.SharedSolutionCount = new AtomicInteger();
+        copy.SharedStatus = new AtomicReference<>(SearchStatus.Complete);
+        copy.Budget = Budget;
+        List<HashSet<Integer>> solutions = pool.invoke(new ParallelSearch(copy, splitDepth, solutionLimit));
+        if (!Frozen) Status = copy.SharedStatus.get(); //Other threads may be searching a frozen template too.
+        //Workers can overshoot the limit slightly between checks.
+        return solutions.size() > solutionLimit ? new ArrayList<>(solutions.subList(0, solutionLimit)) : solutions;
+    }
+
+    private static class ParallelSearch extends RecursiveTask<List<HashSet<Integer>>>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final ExactCover Problem;
+        private final int SplitDepth;
+        private final int SolutionLimit;
+
+        ParallelSearch(ExactCover problem, int splitDepth, int solutionLimit)
         {
-            Solutions = new ArrayList<HashSet<Integer>>();
-            Stack = new Stack<Integer>();
+            Problem = problem;
+            SplitDepth = splitDepth;
+            SolutionLimit = solutionLimit;
         }
 
-        if (getFirstSolution && Solutions.size() > 0) return;
-        if (checkForMultipleSolutions && Solutions.size() > 1) return;
+        @Override
+        protected List<HashSet<Integer>> compute()
+        {
+            ExactCover problem = Problem;
+            if (problem.SharedSolutionCount.get() >= SolutionLimit || problem.SharedStatus.get() != SearchStatus.Complete)
+                return new ArrayList<>();
 
-        //PrintState();
-        if (Root.Right == Root) //No columns remain to be covered
+            if (SplitDepth == 0 || problem.Right[Root] == Root)
+            {
+                problem.SearchForSolutions(SolutionLimit);
+                return problem.Solutions;
+            }
+
+            //A split visits a node as well, so it is charged to the budget like any other.
+            SearchStatus status = problem.Budget == null ? SearchStatus.Complete : problem.Budget.Check();
+            if (status != SearchStatus.Complete)
+            {
+                problem.SharedStatus.compareAndSet(SearchStatus.Complete, status);
+                return new ArrayList<>();
+            }
+
+            int column = problem.SmallestColumn();
+            List<ParallelSearch> branches = new ArrayList<>();
+            for (int node = problem.Down[column]; node != column; node = problem.Down[node])
+            {
+                ExactCover branch = new ExactCover(problem);
+                branch.SharedSolutionCount = problem.SharedSolutionCount;
+                branch.SharedStatus = problem.SharedStatus;
+                branch.Budget = problem.Budget;
+                branch.Select(problem.Row[node]);
+                branches.add(new ParallelSearch(branch, SplitDepth - 1, SolutionLimit));
+            }
+
+            List<HashSet<Integer>> solutions = new ArrayList<>();
+            for (ParallelSearch branch : invokeAll(branches)) solutions.addAll(branch.join());
+            return solutions;
+        }
+    }
+
+    private static class SolutionSpliterator implements Spliterator<int[]>
+    {
+        private final ExactCover Problem;
+        private int Base;        //Depth of the first choice, after the rows already selected.
+        private int TopColumn;   //Column chosen at Base, -1 if nothing was left to cover.
+        private int[] TopNodes;  //Its rows, of which this spliterator tries From to To.
+        private int From;
+        private int To;
+        private int TopIndex;
+
+        //The explicit stack: the column chosen at each depth and the node of the row being tried in it.
+        private int[] ColumnAt;
+        private int[] NodeAt;
+        private int Depth;
+        private boolean Started;
+        private boolean Retreating;
+        private boolean Done;
+
+        SolutionSpliterator(ExactCover owner)
         {
-            Solutions.add(new HashSet<>(Stack));
-            return;
+            Problem = new ExactCover(owner);
+            Problem.Budget = owner.Budget;
+            Prepare();
+            From = 0;
+            To = TopNodes.length;
         }
 
-        ColumnHeader column = SmallestColumn(); //This biases the ordering of solutions but is essential for speed.
-        CoverColumn(column);
-        for(Cell cell : GetCellsInColumn(column))
+        private SolutionSpliterator(SolutionSpliterator other, int from, int to)
         {
-            Stack.push(cell.RowName);
+            Problem = new ExactCover(other.Problem);
+            Problem.Budget = other.Problem.Budget;
+            Base = other.Base;
+            TopColumn = other.TopColumn;
+            TopNodes = other.TopNodes; //Node numbers are the same in every copy.
+            From = from;
+            To = to;
+            ColumnAt = new int[other.ColumnAt.length];
+            NodeAt = new int[other.NodeAt.length];
+        }
 
-            List<Cell> otherCellsInRow = GetOtherCellsInRow(cell);
-            for (Cell cellInRow : otherCellsInRow)
+        private void Prepare()
+        {
+            ExactCover p = Problem;
+            Base = p.Selected;
+            ColumnAt = new int[p.Columns + 1];
+            NodeAt = new int[p.Columns + 1];
+            if (p.Right[Root] == Root)
             {
-                CoverColumn(cellInRow);
+                TopColumn = -1;
+                TopNodes = new int[0];
+                return;
             }
-            Search(n + 1, getFirstSolution, checkForMultipleSolutions);
 
-            Collections.reverse(otherCellsInRow);
-            for (Cell cellInRow : otherCellsInRow)
+            TopColumn = p.SmallestColumn();
+            TopNodes = new int[p.Size[TopColumn]];
+            int k = 0;
+            for (int node = p.Down[TopColumn]; node != TopColumn; node = p.Down[node]) TopNodes[k++] = node;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super int[]> action)
+        {
+            if (Done) return false;
+            ExactCover p = Problem;
+            if (!Started)
             {
-                UncoverColumn(cellInRow);
+                Started = true;
+                Depth = Base;
+                Retreating = false;
             }
 
-            Stack.pop();
+            while (true)
+            {
+                if (!Retreating)
+                {
+                    //Entering Depth with no row chosen there yet.
+                    if (p.Budget != null && (p.Status = p.Budget.Check()) != SearchStatus.Complete)
+                    {
+                        Done = true;
+                        return false;
+                    }
+                    if (p.Right[Root] == Root)
+                    {
+                        Retreating = true;
+                        action.accept(Arrays.copyOf(p.Choices, Depth));
+                        return true;
+                    }
+
+                    int column = Depth == Base ? TopColumn : p.SmallestColumn();
+                    p.CoverColumn(column);
+                    ColumnAt[Depth] = column;
+                    NodeAt[Depth] = column;
+                    if (Depth == Base) TopIndex = From;
+                }
+                else
+                {
+                    //Backing up to undo the row chosen one level up.
+                    if (--Depth < Base)
+                    {
+                        Done = true;
+                        return false;
+                    }
+                    int node = NodeAt[Depth];
+                    for (int rowNode = p.Left[node]; rowNode != node; rowNode = p.Left[rowNode]) p.UncoverColumn(p.Column[rowNode]);
+                }
+
+                int column = ColumnAt[Depth];
+                int node = Depth == Base ? (TopIndex < To ? TopNodes[TopIndex++] : column) : p.Down[NodeAt[Depth]];
+                if (node == column)
+                {
+                    p.UncoverColumn(column);
+                    Retreating = true;
+                    continue;
+                }
+
+                NodeAt[Depth] = node;
+                p.Choices[Depth] = p.Row[node];
+                for (int rowNode = p.Right[node]; rowNode != node; rowNode = p.Right[rowNode]) p.CoverColumn(p.Column[rowNode]);
+                Depth++;
+                Retreating = false;
+            }
+        }
+
+        @Override
+        public Spliterator<int[]> trySplit()
+        {
+            if (Started) return null;
+
+            //A single row left to try is as good as selected, so split the column after it instead.
+            while (To - From == 1)
+            {
+                Problem.Select(Problem.Row[TopNodes[From]]);
+                Prepare();
+                From = 0;
+                To = TopNodes.length;
+            }
+            if (To - From < 2) return null;
+
+            int middle = (From + To) >>> 1;
+            SolutionSpliterator prefix = new SolutionSpliterator(this, From, middle);
+            From = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize()
+        {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics()
+        {
+            return ORDERED | NONNULL;
         }
-        UncoverColumn(column);
     }
 
-    private Iterable<Cell> GetCellsInColumn(ColumnHeader columnHeader)
+    //Stops once solutionLimit solutions have been found.
+    private void SearchForSolutions(int solutionLimit)
     {
-        return GetCellsInColumnDownwards(columnHeader);
+        CheckNotFrozen();
+        Solutions = new ArrayList<HashSet<Integer>>();
+        SolutionCount = 0;
+        SolutionLimit = solutionLimit;
+        Status = SearchStatus.Complete;
+        BeginStatistics();
+        Search(Selected);
+        if (SharedStatus != null && Status != SearchStatus.Complete) SharedStatus.compareAndSet(SearchStatus.Complete, Status);
+        if (Statistics != null) Statistics.End(SolutionCount);
     }
 
-    private List<Cell> GetCellsInColumnDownwards(ColumnHeader columnHeader)
+    private void BeginStatistics()
     {
-        Cell cell = columnHeader.Down;
-        List<Cell> result = new ArrayList<Cell>();
-        while (cell != columnHeader)
-        {
-            result.add(cell);
-            cell = cell.Down;
-        }
-        return result;
+        if (Statistics == null) return;
+        Statistics.Begin();
+        Statistics.Propagated(Propagated);
     }
 
-    private List<Cell> GetCellsInColumnUpwards(ColumnHeader columnHeader)
+    //Depth as the search statistics count it, from the rows selected before propagation.
+    private int RecordedDepth(int depth)
     {
-        Cell cell = columnHeader.Up;
-        List<Cell> result = new ArrayList<Cell>();
-        while (cell != columnHeader)
-        {
-            result.add(cell);
-            cell = cell.Up;
-        }
-        return result;
+        return depth - Selected + Propagated;
     }
 
-    private ColumnHeader SmallestColumn()
+    //Walks the links in place. Nothing is allocated per node, only when a solution is recorded.
+    private void Search(int depth)
     {
-        ColumnHeader smallestColumn = (ColumnHeader)Root.Right;
-        ColumnHeader column = (ColumnHeader)Root.Right;
-        while (column != Root)
+        //PrintState();
+        if (Budget != null && (Status = Budget.Check()) != SearchStatus.Complete) return;
+        if (Statistics != null) Statistics.Visit(RecordedDepth(depth));
+        if (Right[Root] == Root) //No columns remain to be covered
+        {
+            if (Solutions != null)
+            {
+                HashSet<Integer> solution = new HashSet<>();
+                for (int i = 0; i < depth; i++) solution.add(Choices[i]);
+                Solutions.add(solution);
+            }
+            else if (SolutionCount == 0 && FirstSolution != null)
+            {
+                System.arraycopy(Choices, 0, FirstSolution, 0, depth);
+                Arrays.fill(FirstSolution, depth, FirstSolution.length, -1);
+            }
+            SolutionCount++;
+            if (SharedSolutionCount != null) SharedSolutionCount.incrementAndGet();
+            return;
+        }
+
+        int column = SmallestColumn(); //This biases the ordering of solutions but is essential for speed.
+        if (Statistics != null) Statistics.Branch(RecordedDepth(depth), Size[column]);
+        CoverColumn(column);
+        if (Random == null)
         {
-            if (column.Size < smallestColumn.Size) smallestColumn = column;
-            column = (ColumnHeader)column.Right;
+            for (int node = Down[column]; node != column && KeepSearching(); node = Down[node])
+            {
+                TryRow(node, depth);
+            }
         }
-        return smallestColumn;
+        else
+        {
+            //Covered columns never share nodes, so the orders of every depth fit in one array of all the nodes.
+            if (Order == null || Order.length < Nodes) Order = new int[Nodes];
+            int start = OrderTop;
+            int count = 0;
+            for (int node = Down[column]; node != column; node = Down[node]) Order[start + count++] = node;
+            for (int k = count - 1; k > 0; k--)
+            {
+                int r = Random.nextInt(k + 1);
+                int node = Order[start + k];
+                Order[start + k] = Order[start + r];
+                Order[start + r] = node;
+            }
+
+            OrderTop = start + count;
+            for (int k = 0; k < count && KeepSearching(); k++)
+            {
+                TryRow(Order[start + k], depth);
+            }
+            OrderTop = start;
+        }
+        UncoverColumn(column);
     }
 
-    private ColumnHeader GetColumnHeader(Cell cell)
+    private void TryRow(int node, int depth)
     {
-        while (!(cell instanceof ColumnHeader))
+        Choices[depth] = Row[node];
+
+        for (int rowNode = Right[node]; rowNode != node; rowNode = Right[rowNode])
+        {
+            CoverColumn(Column[rowNode]);
+        }
+        Search(depth + 1);
+
+        for (int rowNode = Left[node]; rowNode != node; rowNode = Left[rowNode])
         {
-            cell = cell.Up;
+            UncoverColumn(Column[rowNode]);
         }
-        return (ColumnHeader)cell;
     }
 
-    private void CoverColumn(Cell cell)
+    private int SolutionsFound()
     {
-        CoverColumn(GetColumnHeader(cell));
+        return SharedSolutionCount == null ? SolutionCount : SharedSolutionCount.get();
     }
 
-    private void UncoverColumn(Cell cell)
+    private boolean KeepSearching()
     {
-        UncoverColumn(GetColumnHeader(cell));
+        return SolutionsFound() < SolutionLimit && Status == SearchStatus.Complete
+            && (SharedStatus == null || SharedStatus.get() == SearchStatus.Complete);
     }
 
-    private void CoverColumn(ColumnHeader columnHeader)
+    private int SmallestColumn()
     {
-        columnHeader.Right.Left = columnHeader.Left;
-        columnHeader.Left.Right = columnHeader.Right;
-        for (Cell cell : GetCellsInColumnDownwards(columnHeader))
+        int smallestColumn = Right[Root];
+        int ties = 1;
+        for (int column = Right[smallestColumn]; column != Root; column = Right[column])
         {
-            for (Cell rowCell : GetOtherCellsInRow(cell))
+            if (Size[column] < Size[smallestColumn])
             {
-                rowCell.Down.Up = rowCell.Up;
-                rowCell.Up.Down = rowCell.Down;
-                GetColumnHeader(rowCell).Size--;
+                smallestColumn = column;
+                ties = 1;
+            }
+            else if (Random != null && Size[column] == Size[smallestColumn] && Random.nextInt(++ties) == 0)
+            {
+                smallestColumn = column; //Each of the tied columns ends up chosen with equal probability.
             }
         }
+        return smallestColumn;
     }
 
-    private void UncoverColumn(ColumnHeader columnHeader)
+    private void CoverColumn(int header)
     {
-        for (Cell cell : GetCellsInColumnUpwards(columnHeader))
+        if (Statistics != null) Statistics.Cover();
+        Right[Left[header]] = Right[header];
+        Left[Right[header]] = Left[header];
+        for (int node = Down[header]; node != header; node = Down[node])
         {
-            for (Cell rowCell : GetOtherCellsInRow(cell))
+            for (int rowNode = Right[node]; rowNode != node; rowNode = Right[rowNode])
             {
-                GetColumnHeader(rowCell).Size++;
-                rowCell.Down.Up = rowCell;
-                rowCell.Up.Down = rowCell;
+                Up[Down[rowNode]] = Up[rowNode];
+                Down[Up[rowNode]] = Down[rowNode];
+                Size[Column[rowNode]]--;
             }
         }
-        columnHeader.Right.Left = columnHeader;
-        columnHeader.Left.Right = columnHeader;
     }
 
-    private List<Cell> GetOtherCellsInRow(Cell cell)
+    private void UncoverColumn(int header)
     {
-        //Do not return the cell itself.
-        Cell next = cell.Right;
-
-        List<Cell> result = new ArrayList<Cell>();
-        while(next != cell)
+        if (Statistics != null) Statistics.Uncover();
+        for (int node = Up[header]; node != header; node = Up[node])
         {
-            result.add(next);
-            next = next.Right;
+            for (int rowNode = Left[node]; rowNode != node; rowNode = Left[rowNode])
+            {
+                Size[Column[rowNode]]++;
+                Up[Down[rowNode]] = rowNode;
+                Down[Up[rowNode]] = rowNode;
+            }
         }
-        return result;
+        Right[Left[header]] = header;
+        Left[Right[header]] = header;
     }
 
     private void PrintState()
@@ -312,21 +902,18 @@ public class ExactCover
 
         for(int j=-1; j<6; j++)
         {
-            ColumnHeader column = (ColumnHeader)Root.Right;
-            while (column != Root)
+            for (int column = Right[Root]; column != Root; column = Right[column])
             {
-                if (j==-1) System.out.print(column.ColumnName);
+                if (j==-1) System.out.print(column - 1);
                 else
                 {
                     boolean present = false;
-                    for (Cell cell : GetCellsInColumnDownwards(column))
+                    for (int node = Down[column]; node != column; node = Down[node])
                     {
-                        if (cell.RowName == j) present = true;
+                        if (Row[node] == j) present = true;
                     }
                     if (present) System.out.print("1"); else System.out.print("0");
                 }
-
-                column = (ColumnHeader)column.Right;
             }
             System.out.println();
         }
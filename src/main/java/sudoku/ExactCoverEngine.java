@@ -0,0 +1,224 @@
+package sudoku;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Solves Sudoku of any box size n, a board of n^2 x n^2 cells, as an exact cover problem with dancing links.
+//The rules are a combination of constraints, classic Sudoku unless others are given.
+public class ExactCoverEngine implements SolverEngine
+{
+    //The constraints of an empty grid never change, so they are linked once per box size and every puzzle searches a copy.
+    //Classic engines all share one set of templates.
+    private static final ConcurrentHashMap<Integer, ExactCover> ClassicEmptyGrids = new ConcurrentHashMap<>();
+
+    private final Constraint[] Constraints;
+    private final ConcurrentHashMap<Integer, ExactCover> EmptyGrids;
+    private final SearchStatistics Statistics;
+
+    public ExactCoverEngine()
+    {
+        this((SearchStatistics)null);
+    }
+
+    //Records every search into statistics, which then hold the figures of the last solve.
+    public ExactCoverEngine(SearchStatistics statistics)
+    {
+        Constraints = sudoku.Constraints.Classic();
+        EmptyGrids = ClassicEmptyGrids;
+        Statistics = statistics;
+    }
+
+    //A variant, for example Constraints.Classic() plus Constraints.Diagonals() for X-Sudoku.
+    public ExactCoverEngine(Constraint... constraints)
+    {
+        if (constraints.length == 0) throw new IllegalArgumentException("At least one constraint is required.");
+        Constraints = constraints.clone();
+        EmptyGrids = new ConcurrentHashMap<>();
+        Statistics = null;
+    }
+
+    //True for the rules of classic Sudoku, which are the only ones that CachingEngine can cache.
+    boolean IsClassic()
+    {
+        return EmptyGrids == ClassicEmptyGrids;
+    }
+
+    public int Solve(byte[][] grid, byte[][] solution, int limit, SearchBudget budget)
+    {
+        ExactCover exactCover = CreateExactCoverProblem(grid);
+        int[] rows = solution == null ? null : new int[exactCover.Columns()];
+        int solutions = Search(exactCover, limit, budget, rows);
+        if (solutions > 0 && solution != null) WriteSolution(rows, solution);
+        return Finish(exactCover, solutions);
+    }
+
+    @Override
+    public int Solve(byte[] grid, int gridOffset, int size, byte[] solution, int solutionOffset, int limit, SearchBudget budget)
+    {
+        CheckCells(grid, gridOffset, size * size);
+        if (solution != null) CheckCells(solution, solutionOffset, size * size);
+        ExactCover exactCover = CreateExactCoverProblem(grid, gridOffset, size);
+        int[] rows = solution == null ? null : new int[exactCover.Columns()];
+        int solutions = Search(exactCover, limit, budget, rows);
+        if (solutions > 0 && solution != null) WriteSolution(rows, size, solution, solutionOffset);
+        return Finish(exactCover, solutions);
+    }
+
+    private int Search(ExactCover exactCover, int limit, SearchBudget budget, int[] rows)
+    {
+        exactCover.Propagate(); //A contradiction leaves a column with no rows, which the search rejects at its first node.
+        exactCover.SetStatistics(Statistics); //The search counts the propagated rows as forced choices when it starts.
+        exactCover.SetBudget(budget);
+        return exactCover.CountSolutions(limit, rows);
+    }
+
+    private static int Finish(ExactCover exactCover, int solutions)
+    {
+        if (exactCover.Status() != SearchStatus.Complete) throw new SearchStoppedException(exactCover.Status(), solutions);
+        return solutions;
+    }
+
+    //Finds a random grid that satisfies every constraint by searching the template in random order.
+    public byte[][] RandomCompleteGrid(int boxSize, SplittableRandom random)
+    {
+        byte[][] sudoku = new byte[boxSize * boxSize][boxSize * boxSize];
+        WriteSolution(RandomRows(boxSize, random), sudoku);
+        return sudoku;
+    }
+
+    //The same written row by row into grid from offset.
+    public void RandomCompleteGrid(int boxSize, SplittableRandom random, byte[] grid, int offset)
+    {
+        WriteSolution(RandomRows(boxSize, random), boxSize * boxSize, grid, offset);
+    }
+
+    private int[] RandomRows(int boxSize, SplittableRandom random)
+    {
+        ExactCover exactCover = new ExactCover(EmptyGrid(boxSize));
+        exactCover.SetRandom(random);
+
+        int[] rows = new int[exactCover.Columns()];
+        if (exactCover.CountSolutions(1, rows) == 0) throw new IllegalStateException("No grid satisfies these constraints.");
+        return rows;
+    }
+
+    private ExactCover EmptyGrid(int boxSize)
+    {
+        return EmptyGrids.computeIfAbsent(boxSize, this::BuildEmptyGridTemplate);
+    }
+
+    //Each constraint writes its columns for a placement straight into the row, after those of the constraints before it.
+    //Columns that may be left uncovered come after all the others, as secondary columns.
+    private ExactCover BuildEmptyGridTemplate(int boxSize)
+    {
+        int size = boxSize * boxSize;
+        int[] firstColumn = new int[Constraints.length];
+        int primaryColumns = 0;
+        for (int c = 0; c < Constraints.length; c++)
+        {
+            if (Constraints[c].AtMostOnce()) continue;
+            firstColumn[c] = primaryColumns;
+            primaryColumns += Constraints[c].Columns(boxSize);
+        }
+        int columnCount = primaryColumns;
+        for (int c = 0; c < Constraints.length; c++)
+        {
+            if (!Constraints[c].AtMostOnce()) continue;
+            firstColumn[c] = columnCount;
+            columnCount += Constraints[c].Columns(boxSize);
+        }
+
+        ExactCover exactCover = new ExactCover(primaryColumns, columnCount - primaryColumns);
+        int[] columns = new int[columnCount];
+
+        for (int i = 0; i < size; i++)
+        {
+            for (int j = 0; j < size; j++)
+            {
+                for (int z = 0; z < size; z++)
+                {
+                    int count = 0;
+                    for (int c = 0; c < Constraints.length; c++)
+                    {
+                        int start = count;
+                        count = Constraints[c].Cover(boxSize, i, j, z, columns, count);
+                        for (int k = start; k < count; k++) columns[k] += firstColumn[c];
+                    }
+                    exactCover.AddRow(RowName(size, i, j, z), columns, count);
+                }
+            }
+        }
+
+        exactCover.Freeze();
+        return exactCover;
+    }
+
+    //Copies the template and pre-selects the rows of the givens rather than building a new matrix.
+    //A clue that clashes with an earlier one is rejected here, before any search.
+    ExactCover CreateExactCoverProblem(byte[][] input)
+    {
+        int size = input.length;
+        ExactCover exactCover = new ExactCover(EmptyGrid(BoxSize(size)));
+
+        for (int i = 0; i < size; i++)
+        {
+            if (input[i].length != size) throw new IllegalArgumentException("The grid must be square.");
+            for (int j = 0; j < size; j++) SelectClue(exactCover, size, i, j, input[i][j]);
+        }
+
+        return exactCover;
+    }
+
+    //The same for a flat grid of size x size cells row by row from offset.
+    ExactCover CreateExactCoverProblem(byte[] input, int offset, int size)
+    {
+        ExactCover exactCover = new ExactCover(EmptyGrid(BoxSize(size)));
+        for (int cell = 0; cell < size * size; cell++) SelectClue(exactCover, size, cell / size, cell % size, input[offset + cell]);
+        return exactCover;
+    }
+
+    private static void SelectClue(ExactCover exactCover, int size, int i, int j, byte clue)
+    {
+        if (clue == 0) return;
+        if (clue < 0 || clue > size)
+            throw new IllegalArgumentException("The clue at row " + i + ", column " + j + " is out of range.");
+        if (!exactCover.Select(RowName(size, i, j, clue - 1)))
+            throw new IllegalArgumentException("The clue at row " + i + ", column " + j + " conflicts with another clue.");
+    }
+
+    static int BoxSize(int size)
+    {
+        int boxSize = (int)Math.round(Math.sqrt(size));
+        if (boxSize < 1 || boxSize * boxSize != size || size > Byte.MAX_VALUE)
+            throw new IllegalArgumentException("A grid of size " + size + " is not a Sudoku board.");
+        return boxSize;
+    }
+
+    //Throws IllegalArgumentException unless count cells from offset lie within cells, for the flat grid methods.
+    static void CheckCells(byte[] cells, int offset, int count)
+    {
+        if (offset < 0 || offset > cells.length - count)
+            throw new IllegalArgumentException("The " + count + " cells from offset " + offset + " do not fit in " + cells.length + ".");
+    }
+
+    private static int RowName(int size, int i, int j, int z)
+    {
+        return (((i * size) + j) * size) + z;
+    }
+
+    private static void WriteSolution(int[] rows, byte[][] sudoku)
+    {
+        int size = sudoku.length;
+        for (int k = 0; k < rows.length && rows[k] != -1; k++)
+        {
+            int rowName = rows[k];
+            sudoku[rowName / (size * size)][(rowName / size) % size] = (byte)((rowName % size) + 1);
+        }
+    }
+
+    //Row names are cell * size + digit - 1, so the cell indexes the flat grid directly.
+    private static void WriteSolution(int[] rows, int size, byte[] sudoku, int offset)
+    {
+        for (int k = 0; k < rows.length && rows[k] != -1; k++) sudoku[offset + (rows[k] / size)] = (byte)((rows[k] % size) + 1);
+    }
+}
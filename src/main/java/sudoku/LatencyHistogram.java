@@ -0,0 +1,65 @@
+package sudoku;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+//Counts latencies in power of two buckets of microseconds, so a fixed 28 counters cover anything up to minutes
+//with at most a factor of two of error. Thread safe and never allocates once made.
+public class LatencyHistogram
+{
+    private static final int Buckets = 28;
+
+    private final LongAdder[] Counts = new LongAdder[Buckets]; //Bucket b holds latencies under 2^b microseconds.
+    private final LongAdder TotalNanos = new LongAdder();
+    private final AtomicLong MaxNanos = new AtomicLong();
+
+    public LatencyHistogram()
+    {
+        for (int b = 0; b < Buckets; b++) Counts[b] = new LongAdder();
+    }
+
+    public void Record(long nanos)
+    {
+        long micros = Math.max(0, nanos / 1000);
+        int bucket = Math.min(Buckets - 1, 64 - Long.numberOfLeadingZeros(micros));
+        Counts[bucket].increment();
+        TotalNanos.add(nanos);
+        MaxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long Count()
+    {
+        long count = 0;
+        for (LongAdder bucket : Counts) count += bucket.sum();
+        return count;
+    }
+
+    public long MaxNanos()
+    {
+        return MaxNanos.get();
+    }
+
+    public double MeanNanos()
+    {
+        long count = Count();
+        return count == 0 ? 0 : (double)TotalNanos.sum() / count;
+    }
+
+    //An upper bound on the given quantile, from 0 to 1, in microseconds. 0 when nothing has been recorded.
+    public long QuantileMicros(double quantile)
+    {
+        long[] counts = new long[Buckets];
+        long total = 0;
+        for (int b = 0; b < Buckets; b++) total += counts[b] = Counts[b].sum();
+        if (total == 0) return 0;
+
+        long rank = (long)Math.ceil(quantile * total);
+        long seen = 0;
+        for (int b = 0; b < Buckets; b++)
+        {
+            seen += counts[b];
+            if (seen >= rank && counts[b] > 0) return 1L << b;
+        }
+        return 1L << (Buckets - 1);
+    }
+}
@@ -0,0 +1,32 @@
+package sudoku;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+//Registration shared by the beans that publish their counters over JMX.
+final class MBeans
+{
+    private MBeans()
+    {
+    }
+
+    //Registers bean under sudoku:type=<type>,name=<name> on the platform MBean server.
+    static void Register(Object bean, String type, String name)
+    {
+        String objectName = "sudoku:type=" + type + ",name=" + ObjectName.quote(name);
+        try
+        {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(bean, new ObjectName(objectName));
+        }
+        catch (InstanceAlreadyExistsException e)
+        {
+            throw new IllegalStateException(objectName + " is already registered.", e);
+        }
+        catch (JMException e)
+        {
+            throw new IllegalStateException("Could not register " + objectName + ".", e);
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package sudoku;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+//A persistent store of 9x9 puzzles with their solutions, for banks far larger than the heap.
+//Records are appended to one file, each one cell per byte with the clue in the high 4 bits and the solution in
+//the low 4, after a byte each for the clue count and the difficulty. Index sorts the record numbers by clue count
+//then difficulty into a second file, and both files are memory mapped, so a lookup reads only the record it returns.
+//Adding is not thread safe. Once indexed, records can be read from any number of threads.
+public class PuzzleBank implements AutoCloseable
+{
+    private static final long Magic = 0x5355444F42414E4BL; //SUDOBANK
+    private static final int Header = 8;
+    private static final int RecordBytes = 2 + 81;
+    private static final int Difficulties = 256;
+    private static final int Buckets = 82 * Difficulties; //Clue count then difficulty.
+    private static final int IndexHeader = 8 + (8 * (Buckets + 1));
+    private static final long MappedWindow = 1L << 28;
+    private static final long RecordsPerWindow = MappedWindow / RecordBytes;
+    private static final int WriteBuffer = RecordBytes * 1024;
+
+    private final Path DataPath;
+    private final Path IndexPath;
+    private final FileChannel Channel;
+    private final ByteBuffer Pending = ByteBuffer.allocate(WriteBuffer);
+    private long Records;  //Including those still in Pending.
+    private long Written;
+
+    private MappedByteBuffer[] DataWindows = new MappedByteBuffer[0];
+    private MappedByteBuffer[] IndexWindows = new MappedByteBuffer[0];
+    private long Indexed;
+
+    public static class Record
+    {
+        public final long Number;
+        public final int Clues;
+        public final int Difficulty;
+        public final byte[][] Puzzle;
+        public final byte[][] Solution;
+
+        Record(long number, int clues, int difficulty, byte[][] puzzle, byte[][] solution)
+        {
+            Number = number;
+            Clues = clues;
+            Difficulty = difficulty;
+            Puzzle = puzzle;
+            Solution = solution;
+        }
+    }
+
+    //Opens the bank at path, creating it if it does not exist. The index is kept next to it in path.idx.
+    public PuzzleBank(Path path) throws IOException
+    {
+        DataPath = path;
+        IndexPath = path.resolveSibling(path.getFileName() + ".idx");
+        Channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+
+        try
+        {
+            if (Channel.size() == 0)
+            {
+                ByteBuffer header = ByteBuffer.allocate(Header);
+                header.putLong(0, Magic);
+                Channel.write(header, 0);
+            }
+            else
+            {
+                ByteBuffer header = ByteBuffer.allocate(Header);
+                Channel.read(header, 0);
+                if (header.getLong(0) != Magic) throw new IOException(path + " is not a puzzle bank.");
+            }
+            Records = (Channel.size() - Header) / RecordBytes; //A record cut short by a crash is overwritten.
+            Written = Records;
+            if (Files.exists(IndexPath)) MapIndex();
+        }
+        catch (IOException | RuntimeException e)
+        {
+            Channel.close();
+            throw e;
+        }
+    }
+
+    //The number of records, including any added since the bank was last indexed.
+    public long Count()
+    {
+        return Records;
+    }
+
+    //The number of records that lookups by clue count and difficulty can return.
+    public long IndexedCount()
+    {
+        return Indexed;
+    }
+
+    //Appends a puzzle with its solution and returns the record number. Difficulty is whatever scale the caller
+    //rates by, from 0 to 255. The solution is only checked against the clues, not solved again.
+    public long Add(byte[][] puzzle, byte[][] solution, int difficulty) throws IOException
+    {
+        if (difficulty < 0 || difficulty >= Difficulties) throw new IllegalArgumentException("The difficulty must be between 0 and 255.");
+        if (puzzle.length != 9 || solution.length != 9) throw new IllegalArgumentException("Only 9x9 grids are supported.");
+        if (Records == 0xFFFFFFFFL) throw new IllegalStateException("The bank is full."); //Indexed by 32 bit record numbers.
+
+        if (Pending.remaining() < RecordBytes) Flush();
+        int start = Pending.position();
+        Pending.position(start + 2);
+        int clues = 0;
+        for (int i = 0; i < 9; i++)
+        {
+            if (puzzle[i].length != 9 || solution[i].length != 9) throw Rewind(start, "The grids must be square.");
+            for (int j = 0; j < 9; j++)
+            {
+                int clue = puzzle[i][j];
+                int digit = solution[i][j];
+                if (digit < 1 || digit > 9) throw Rewind(start, "The solution at row " + i + ", column " + j + " is out of range.");
+                if (clue != 0 && clue != digit) throw Rewind(start, "The clue at row " + i + ", column " + j + " does not match the solution.");
+                if (clue != 0) clues++;
+                Pending.put((byte)((clue << 4) | digit));
+            }
+        }
+        Pending.put(start, (byte)clues);
+        Pending.put(start + 1, (byte)difficulty);
+        return Records++;
+    }
+
+    private IllegalArgumentException Rewind(int start, String message)
+    {
+        Pending.position(start);
+        return new IllegalArgumentException(message);
+    }
+
+    //Writes any records still buffered to the file.
+    public void Flush() throws IOException
+    {
+        Pending.flip();
+        long position = Header + (Written * RecordBytes);
+        while (Pending.hasRemaining()) position += Channel.write(Pending, position);
+        Pending.clear();
+        Written = Records;
+    }
+
+    //Rebuilds the index over every record, reading the bank twice through mapped windows and never holding it
+    //in memory: once to count each bucket and once to place each record number.
+    public void Index() throws IOException
+    {
+        Flush();
+        MapData();
+
+        long[] starts = new long[Buckets + 1];
+        for (long record = 0; record < Records; record++) starts[Bucket(record) + 1]++;
+        for (int bucket = 0; bucket < Buckets; bucket++) starts[bucket + 1] += starts[bucket];
+
+        //Written beside the old index and moved over it, so a failure leaves the old one intact.
+        Path temporary = IndexPath.resolveSibling(IndexPath.getFileName() + ".tmp");
+        try (FileChannel index = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            long size = IndexHeader + (4 * Records);
+            MappedByteBuffer[] windows = Map(index, FileChannel.MapMode.READ_WRITE, size, MappedWindow);
+            windows[0].putLong(0, Records);
+            for (int bucket = 0; bucket <= Buckets; bucket++) windows[0].putLong(8 + (8 * bucket), starts[bucket]);
+
+            long[] next = starts.clone();
+            for (long record = 0; record < Records; record++)
+            {
+                long offset = IndexHeader + (4 * next[Bucket(record)]++);
+                windows[(int)(offset / MappedWindow)].putInt((int)(offset % MappedWindow), (int)record);
+            }
+            for (MappedByteBuffer window : windows) window.force();
+        }
+        Files.move(temporary, IndexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        MapIndex();
+    }
+
+    //Reads one record by number, indexed or not.
+    public Record Get(long record) throws IOException
+    {
+        if (record < 0 || record >= Records) throw new IllegalArgumentException("Record " + record + " does not exist.");
+        if (record < Indexed) return Read(record, DataWindows[(int)(record / RecordsPerWindow)], (int)((record % RecordsPerWindow) * RecordBytes));
+
+        if (record >= Written) Flush();
+        ByteBuffer buffer = ByteBuffer.allocate(RecordBytes);
+        long position = Header + (record * RecordBytes);
+        while (buffer.hasRemaining()) position += Channel.read(buffer, position);
+        return Read(record, buffer, 0);
+    }
+
+    //The number of indexed records with the given clues and a difficulty from minDifficulty to maxDifficulty.
+    public long Count(int clues, int minDifficulty, int maxDifficulty)
+    {
+        if (IndexWindows.length == 0 || !InRange(clues, minDifficulty, maxDifficulty)) return 0;
+        return Start(Bucket(clues, maxDifficulty) + 1) - Start(Bucket(clues, minDifficulty));
+    }
+
+    //The k-th indexed record with the given clues and difficulties, in order of difficulty then record number.
+    public Record Get(int clues, int minDifficulty, int maxDifficulty, long k) throws IOException
+    {
+        if (k < 0 || k >= Count(clues, minDifficulty, maxDifficulty)) throw new IllegalArgumentException("There is no record " + k + " in that range.");
+        long offset = IndexHeader + (4 * (Start(Bucket(clues, minDifficulty)) + k));
+        return Get(IndexWindows[(int)(offset / MappedWindow)].getInt((int)(offset % MappedWindow)) & 0xFFFFFFFFL);
+    }
+
+    //A uniformly random indexed record with the given clues and difficulties, or null if there is none.
+    public Record Random(int clues, int minDifficulty, int maxDifficulty, SplittableRandom random) throws IOException
+    {
+        long count = Count(clues, minDifficulty, maxDifficulty);
+        return count == 0 ? null : Get(clues, minDifficulty, maxDifficulty, random.nextLong(count));
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            Flush();
+        }
+        finally
+        {
+            Channel.close();
+        }
+    }
+
+    private static boolean InRange(int clues, int minDifficulty, int maxDifficulty)
+    {
+        return clues >= 0 && clues <= 81 && minDifficulty <= maxDifficulty && minDifficulty >= 0 && maxDifficulty < Difficulties;
+    }
+
+    private static int Bucket(int clues, int difficulty)
+    {
+        return (clues * Difficulties) + difficulty;
+    }
+
+    private int Bucket(long record)
+    {
+        MappedByteBuffer window = DataWindows[(int)(record / RecordsPerWindow)];
+        int offset = (int)((record % RecordsPerWindow) * RecordBytes);
+        return Bucket(window.get(offset) & 0xFF, window.get(offset + 1) & 0xFF);
+    }
+
+    private long Start(int bucket)
+    {
+        return IndexWindows[0].getLong(8 + (8 * bucket));
+    }
+
+    private static Record Read(long number, ByteBuffer buffer, int offset)
+    {
+        byte[][] puzzle = new byte[9][9];
+        byte[][] solution = new byte[9][9];
+        for (int k = 0; k < 81; k++)
+        {
+            int cell = buffer.get(offset + 2 + k);
+            puzzle[k / 9][k % 9] = (byte)((cell >> 4) & 0xF);
+            solution[k / 9][k % 9] = (byte)(cell & 0xF);
+        }
+        return new Record(number, buffer.get(offset) & 0xFF, buffer.get(offset + 1) & 0xFF, puzzle, solution);
+    }
+
+    //Windows hold a whole number of records, so no record is split between two of them.
+    private void MapData() throws IOException
+    {
+        DataWindows = new MappedByteBuffer[(int)((Records + RecordsPerWindow - 1) / RecordsPerWindow)];
+        for (int w = 0; w < DataWindows.length; w++)
+        {
+            long first = w * RecordsPerWindow;
+            long records = Math.min(RecordsPerWindow, Records - first);
+            DataWindows[w] = Channel.map(FileChannel.MapMode.READ_ONLY, Header + (first * RecordBytes), records * RecordBytes);
+        }
+    }
+
+    private void MapIndex() throws IOException
+    {
+        try (FileChannel index = FileChannel.open(IndexPath, StandardOpenOption.READ))
+        {
+            MappedByteBuffer[] windows = Map(index, FileChannel.MapMode.READ_ONLY, index.size(), MappedWindow);
+            long indexed = windows.length == 0 ? 0 : windows[0].getLong(0);
+            if (index.size() != IndexHeader + (4 * indexed) || indexed > Written)
+                throw new IOException(IndexPath + " does not match " + DataPath + ", index the bank again.");
+
+            IndexWindows = windows;
+            if (DataWindows.length == 0 || Indexed != indexed)
+            {
+                long records = Records;
+                Records = indexed;
+                MapData();
+                Records = records;
+            }
+            Indexed = indexed;
+        }
+    }
+
+    private static MappedByteBuffer[] Map(FileChannel channel, FileChannel.MapMode mode, long size, long window) throws IOException
+    {
+        List<MappedByteBuffer> windows = new ArrayList<>();
+        for (long position = 0; position < size; position += window)
+        {
+            windows.add(channel.map(mode, position, Math.min(window, size - position)));
+        }
+        return windows.toArray(new MappedByteBuffer[0]);
+    }
+
+    //Usage: PuzzleBank bank count clues [--seed s] [--threads n]
+    //Generates count puzzles with the given number of clues into the bank, rated by DifficultyRater, then indexes it.
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 3)
+        {
+            System.out.println("Usage: PuzzleBank bank count clues [--seed s] [--threads n]");
+            return;
+        }
+
+        int count = Integer.parseInt(args[1]);
+        int clues = Integer.parseInt(args[2]);
+        long seed = System.nanoTime();
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int a = 3; a < args.length; a++)
+        {
+            if (args[a].equals("--seed")) seed = Long.parseLong(args[++a]);
+            else if (args[a].equals("--threads")) threads = Integer.parseInt(args[++a]);
+            else throw new IllegalArgumentException("Unknown option " + args[a]);
+        }
+
+        try (PuzzleBank bank = new PuzzleBank(Paths.get(args[0]));
+             PuzzleGenerator generator = new PuzzleGenerator(BitboardEngine::new, threads);
+             DifficultyRater rater = new DifficultyRater(threads);
+             Stream<byte[][]> puzzles = generator.Generate(count, clues, seed))
+        {
+            List<byte[][]> batch = new ArrayList<>();
+            Iterator<byte[][]> iterator = puzzles.iterator();
+            while (iterator.hasNext())
+            {
+                batch.add(iterator.next());
+                if (batch.size() < 4096 && iterator.hasNext()) continue;
+                DifficultyRater.Rating[] ratings = rater.Rate(batch);
+                for (int p = 0; p < ratings.length; p++) bank.Add(batch.get(p), ratings[p].Solution, ratings[p].Level);
+                batch.clear();
+            }
+            bank.Index();
+            System.out.println("The bank holds " + bank.Count() + " puzzles.");
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package sudoku;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+//Reads and writes 9x9 puzzles in the common line format: 81 characters, a digit for each clue and 0 or . for an
+//empty cell. Lines are parsed straight from bytes into flat grids of 81 cells row by row and formatted straight
+//back, so neither side needs a String and both can sit anywhere in a caller's array or buffer, mapped files included.
+public final class PuzzleCodec
+{
+    public static final int Cells = 81;
+    public static final byte Zeros = '0'; //Characters for empty cells when formatting.
+    public static final byte Dots = '.';
+
+    private static final byte[] Values = new byte[256]; //Cell value of each character, -1 if it cannot be one.
+
+    static
+    {
+        Arrays.fill(Values, (byte)-1);
+        for (int digit = 0; digit <= 9; digit++) Values['0' + digit] = (byte)digit;
+        Values['.'] = 0;
+    }
+
+    private PuzzleCodec()
+    {
+    }
+
+    //Parses the line at offset into the cells at gridOffset. Returns false, leaving the cells undefined, if any
+    //character is not a digit or a dot. Every character is looked up and checked once at the end, without branching.
+    public static boolean Parse(byte[] line, int offset, byte[] grid, int gridOffset)
+    {
+        int invalid = 0;
+        for (int k = 0; k < Cells; k++)
+        {
+            int value = Values[line[offset + k] & 0xFF];
+            invalid |= value;
+            grid[gridOffset + k] = (byte)value;
+        }
+        return invalid >= 0;
+    }
+
+    //The same from absolute positions in a buffer, which leaves its position alone.
+    public static boolean Parse(ByteBuffer line, int offset, byte[] grid, int gridOffset)
+    {
+        int invalid = 0;
+        for (int k = 0; k < Cells; k++)
+        {
+            int value = Values[line.get(offset + k) & 0xFF];
+            invalid |= value;
+            grid[gridOffset + k] = (byte)value;
+        }
+        return invalid >= 0;
+    }
+
+    //Throws IllegalArgumentException naming the problem, for input from people rather than files.
+    public static byte[] Parse(CharSequence line)
+    {
+        if (line.length() != Cells) throw new IllegalArgumentException("A puzzle is 81 characters.");
+        byte[] grid = new byte[Cells];
+        for (int k = 0; k < Cells; k++)
+        {
+            char c = line.charAt(k);
+            if (c > 0xFF || Values[c] < 0) throw new IllegalArgumentException("Unexpected character '" + c + "'.");
+            grid[k] = Values[c];
+        }
+        return grid;
+    }
+
+    //The same as rows, for the byte[][] methods of Sudoku and the engines.
+    public static byte[][] ParseGrid(CharSequence line)
+    {
+        byte[] cells = Parse(line);
+        byte[][] grid = new byte[9][9];
+        for (int i = 0; i < 9; i++) System.arraycopy(cells, i * 9, grid[i], 0, 9);
+        return grid;
+    }
+
+    //Writes the cells at gridOffset as a line at offset, with empty, Zeros or Dots, for each empty cell.
+    public static void Format(byte[] grid, int gridOffset, byte[] line, int offset, byte empty)
+    {
+        for (int k = 0; k < Cells; k++)
+        {
+            byte value = grid[gridOffset + k];
+            line[offset + k] = value == 0 ? empty : (byte)('0' + value);
+        }
+    }
+
+    //The same to absolute positions in a buffer, which leaves its position alone.
+    public static void Format(byte[] grid, int gridOffset, ByteBuffer line, int offset, byte empty)
+    {
+        for (int k = 0; k < Cells; k++)
+        {
+            byte value = grid[gridOffset + k];
+            line.put(offset + k, value == 0 ? empty : (byte)('0' + value));
+        }
+    }
+
+    public static String Format(byte[] grid, int gridOffset, byte empty)
+    {
+        byte[] line = new byte[Cells];
+        Format(grid, gridOffset, line, 0, empty);
+        return new String(line, StandardCharsets.US_ASCII);
+    }
+}
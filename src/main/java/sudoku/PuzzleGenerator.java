@@ -0,0 +1,101 @@
+package sudoku;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+//Generates batches of unique puzzles across a fixed pool of threads, without any console output.
+//Puzzle k of a batch is dug with the k-th seed drawn from the master seed, so the same master seed
+//always produces the same batch in the same order, however the work is scheduled.
+public class PuzzleGenerator implements AutoCloseable
+{
+    private final ExecutorService Pool;
+    private final ThreadLocal<SolverEngine> Engines;
+    private final int MaxInFlight;
+
+    //Each of the threads generates with its own engine from engineFactory.
+    public PuzzleGenerator(Supplier<SolverEngine> engineFactory, int threads)
+    {
+        if (threads < 1) throw new IllegalArgumentException("At least one thread is required.");
+        Pool = Executors.newFixedThreadPool(threads);
+        Engines = ThreadLocal.withInitial(engineFactory);
+        MaxInFlight = threads * 2;
+    }
+
+    public PuzzleGenerator()
+    {
+        this(ExactCoverEngine::new, Runtime.getRuntime().availableProcessors());
+    }
+
+    //Lazily generates count puzzles with the given number of clues, in seed order.
+    //At most two puzzles per thread are generated ahead of the consumer. Closing the stream cancels them.
+    public Stream<byte[][]> Generate(int count, int clues, long masterSeed)
+    {
+        if (count < 0) throw new IllegalArgumentException("The count cannot be negative.");
+        if (clues < 17 || clues > 81) throw new IllegalArgumentException("A unique puzzle needs between 17 and 81 clues.");
+
+        SplittableRandom master = new SplittableRandom(masterSeed);
+        ArrayDeque<Future<byte[][]>> pending = new ArrayDeque<>();
+
+        Iterator<byte[][]> puzzles = new Iterator<byte[][]>()
+        {
+            private int Submitted;
+
+            @Override
+            public boolean hasNext()
+            {
+                Fill();
+                return !pending.isEmpty();
+            }
+
+            @Override
+            public byte[][] next()
+            {
+                if (!hasNext()) throw new NoSuchElementException();
+                try
+                {
+                    return pending.poll().get();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while generating.", e);
+                }
+                catch (ExecutionException e)
+                {
+                    throw new IllegalStateException("Generation failed.", e.getCause());
+                }
+            }
+
+            private void Fill()
+            {
+                while (Submitted < count && pending.size() < MaxInFlight)
+                {
+                    long seed = master.nextLong();
+                    pending.add(Pool.submit(() -> new Sudoku(Engines.get(), seed).DigPuzzleWithClues(clues)));
+                    Submitted++;
+                }
+            }
+        };
+
+        int characteristics = Spliterator.ORDERED | Spliterator.SIZED | Spliterator.NONNULL;
+        return StreamSupport.stream(Spliterators.spliterator(puzzles, count, characteristics), false)
+            .onClose(() -> pending.forEach(future -> future.cancel(true)));
+    }
+
+    @Override
+    public void close()
+    {
+        Pool.shutdownNow();
+    }
+}
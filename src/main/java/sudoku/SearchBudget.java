@@ -0,0 +1,89 @@
+package sudoku;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+//Bounds a search by a wall-clock deadline, a number of search nodes, or both, and lets another thread cancel it.
+//Searches check it cooperatively at every node, so a stopped search unwinds normally and leaves its links as they
+//were. The deadline starts when the budget is made and the nodes are counted across every search that uses it,
+//so make one per request. Thread safe: the workers of a parallel search share one budget and one node count, so
+//the limit bounds the whole search however many ways it is split.
+public class SearchBudget
+{
+    private static final int NodesPerClockCheck = 256; //Reading the clock costs far more than a search node.
+
+    private final long DeadlineNanos;
+    private final boolean HasDeadline;
+    private final long MaxNodes;
+    private final AtomicLong Nodes = new AtomicLong();
+    private final AtomicReference<SearchStatus> Stopped = new AtomicReference<>(SearchStatus.Complete);
+    private volatile boolean Cancelled;
+
+    //No deadline and no node limit, only cancellation.
+    public SearchBudget()
+    {
+        this(0, null, Long.MAX_VALUE);
+    }
+
+    //A timeout of 0 means no deadline.
+    public SearchBudget(long timeout, TimeUnit unit)
+    {
+        this(timeout, unit, Long.MAX_VALUE);
+    }
+
+    public SearchBudget(long timeout, TimeUnit unit, long maxNodes)
+    {
+        if (timeout < 0) throw new IllegalArgumentException("The timeout cannot be negative.");
+        if (maxNodes < 1) throw new IllegalArgumentException("The node budget must be at least 1.");
+        HasDeadline = timeout > 0;
+        DeadlineNanos = HasDeadline ? System.nanoTime() + unit.toNanos(timeout) : 0;
+        MaxNodes = maxNodes;
+    }
+
+    public static SearchBudget Nodes(long maxNodes)
+    {
+        return new SearchBudget(0, null, maxNodes);
+    }
+
+    //Stops every search using this budget at its next check.
+    public void Cancel()
+    {
+        Cancelled = true;
+    }
+
+    public boolean IsCancelled()
+    {
+        return Cancelled;
+    }
+
+    //Search nodes visited under this budget so far, by every search and thread using it.
+    public long Nodes()
+    {
+        return Math.min(Nodes.get(), MaxNodes);
+    }
+
+    //Why the first search using this budget was stopped, Complete while none has been. This is the outcome to read
+    //for searches that have no problem of their own to report it on, such as streams over a shared template.
+    public SearchStatus Status()
+    {
+        return Stopped.get();
+    }
+
+    //Called once per search node, before visiting it.
+    SearchStatus Check()
+    {
+        long nodes = Nodes.incrementAndGet();
+        if (nodes > MaxNodes) return Stop(SearchStatus.NodeBudgetExhausted);
+        if (nodes % NodesPerClockCheck != 1) return SearchStatus.Complete;
+        if (Cancelled) return Stop(SearchStatus.Cancelled);
+        if (HasDeadline && System.nanoTime() - DeadlineNanos > 0) return Stop(SearchStatus.DeadlineExpired);
+        return SearchStatus.Complete;
+    }
+
+    private SearchStatus Stop(SearchStatus status)
+    {
+        Stopped.compareAndSet(SearchStatus.Complete, status);
+        return status;
+    }
+}
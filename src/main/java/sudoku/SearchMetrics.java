@@ -0,0 +1,52 @@
+package sudoku;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+//Aggregates SearchStatistics from any number of threads. Register it to read the totals over JMX,
+//the maxima make it easy to spot and alert on the searches that take far longer than the rest.
+public class SearchMetrics implements SearchMetricsMXBean
+{
+    private final LongAdder Searches = new LongAdder();
+    private final LongAdder Nodes = new LongAdder();
+    private final LongAdder Covers = new LongAdder();
+    private final LongAdder Uncovers = new LongAdder();
+    private final LongAdder Backtracks = new LongAdder();
+    private final LongAdder Solutions = new LongAdder();
+    private final LongAdder TotalNanos = new LongAdder();
+    private final AtomicInteger MaxDepth = new AtomicInteger();
+    private final AtomicLong MaxNanos = new AtomicLong();
+    private final AtomicLong MaxNodes = new AtomicLong();
+
+    //Registers under sudoku:type=SearchMetrics,name=<name> on the platform MBean server.
+    public void Register(String name)
+    {
+        MBeans.Register(this, "SearchMetrics", name);
+    }
+
+    void Record(SearchStatistics statistics)
+    {
+        Searches.increment();
+        Nodes.add(statistics.Nodes());
+        Covers.add(statistics.Covers());
+        Uncovers.add(statistics.Uncovers());
+        Backtracks.add(statistics.Backtracks());
+        Solutions.add(statistics.Solutions());
+        TotalNanos.add(statistics.ElapsedNanos());
+        MaxDepth.accumulateAndGet(statistics.MaxDepth(), Math::max);
+        MaxNanos.accumulateAndGet(statistics.ElapsedNanos(), Math::max);
+        MaxNodes.accumulateAndGet(statistics.Nodes(), Math::max);
+    }
+
+    @Override public long getSearches() { return Searches.sum(); }
+    @Override public long getNodes() { return Nodes.sum(); }
+    @Override public long getCovers() { return Covers.sum(); }
+    @Override public long getUncovers() { return Uncovers.sum(); }
+    @Override public long getBacktracks() { return Backtracks.sum(); }
+    @Override public long getSolutions() { return Solutions.sum(); }
+    @Override public int getMaxDepth() { return MaxDepth.get(); }
+    @Override public long getTotalNanos() { return TotalNanos.sum(); }
+    @Override public long getMaxNanos() { return MaxNanos.get(); }
+    @Override public long getMaxNodes() { return MaxNodes.get(); }
+}
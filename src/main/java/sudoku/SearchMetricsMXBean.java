@@ -0,0 +1,16 @@
+package sudoku;
+
+//Running totals of ExactCover searches, as exposed over JMX.
+public interface SearchMetricsMXBean
+{
+    long getSearches();
+    long getNodes();
+    long getCovers();
+    long getUncovers();
+    long getBacktracks();
+    long getSolutions();
+    int getMaxDepth();
+    long getTotalNanos();
+    long getMaxNanos();
+    long getMaxNodes();
+}
@@ -0,0 +1,120 @@
+package sudoku;
+
+import java.util.Arrays;
+
+//Collects what one ExactCover search did. Attach it with ExactCover.SetStatistics, it is reset at the start of
+//every search and holds the figures of the last one. When metrics are given, each finished search is also added
+//to those running totals. Not thread safe, use one per search thread.
+public class SearchStatistics
+{
+    private final SearchMetrics Metrics;
+
+    private long Nodes;
+    private long Covers;
+    private long Uncovers;
+    private long Backtracks;
+    private long ForcedChoices;
+    private int MaxDepth;
+    private long[] NodesAtDepth = new long[16];
+    private long[] BranchesAtDepth = new long[16];
+    private long StartNanos;
+    private long ElapsedNanos;
+    private int Solutions;
+
+    public SearchStatistics()
+    {
+        this(null);
+    }
+
+    public SearchStatistics(SearchMetrics metrics)
+    {
+        Metrics = metrics;
+    }
+
+    //Search nodes visited, including the root and every complete solution.
+    public long Nodes() { return Nodes; }
+    public long Covers() { return Covers; }
+    public long Uncovers() { return Uncovers; }
+    //Times the search chose a column with no rows left and had to back up.
+    public long Backtracks() { return Backtracks; }
+    //Times the chosen column had a single row left, a naked or hidden single in Sudoku terms.
+    public long ForcedChoices() { return ForcedChoices; }
+    //Deepest level reached, counting from the rows already selected.
+    public int MaxDepth() { return MaxDepth; }
+    public long ElapsedNanos() { return ElapsedNanos; }
+    public int Solutions() { return Solutions; }
+
+    public long NodesAtDepth(int depth)
+    {
+        return depth < NodesAtDepth.length ? NodesAtDepth[depth] : 0;
+    }
+
+    //Average number of rows tried per node at this depth.
+    public double BranchingFactor(int depth)
+    {
+        long nodes = NodesAtDepth(depth);
+        return nodes == 0 ? 0 : (double)BranchesAtDepth[depth] / nodes;
+    }
+
+    void Begin()
+    {
+        Nodes = 0;
+        Covers = 0;
+        Uncovers = 0;
+        Backtracks = 0;
+        ForcedChoices = 0;
+        MaxDepth = 0;
+        Arrays.fill(NodesAtDepth, 0);
+        Arrays.fill(BranchesAtDepth, 0);
+        Solutions = 0;
+        ElapsedNanos = 0;
+        StartNanos = System.nanoTime();
+    }
+
+    void End(int solutions)
+    {
+        ElapsedNanos = System.nanoTime() - StartNanos;
+        Solutions = solutions;
+        if (Metrics != null) Metrics.Record(this);
+    }
+
+    //Rows selected by ExactCover.Propagate, one forced node per row at the depths the search would have made them.
+    void Propagated(int rows)
+    {
+        for (int depth = 0; depth < rows; depth++)
+        {
+            Visit(depth);
+            Branch(depth, 1);
+        }
+    }
+
+    void Visit(int depth)
+    {
+        Nodes++;
+        if (depth > MaxDepth) MaxDepth = depth;
+        if (depth >= NodesAtDepth.length)
+        {
+            int length = Math.max(depth + 1, NodesAtDepth.length * 2);
+            NodesAtDepth = Arrays.copyOf(NodesAtDepth, length);
+            BranchesAtDepth = Arrays.copyOf(BranchesAtDepth, length);
+        }
+        NodesAtDepth[depth]++;
+    }
+
+    void Branch(int depth, int rows)
+    {
+        BranchesAtDepth[depth] += rows;
+        if (rows == 0) Backtracks++;
+        else if (rows == 1) ForcedChoices++;
+    }
+
+    void Cover()
+    {
+        Covers++;
+    }
+
+    void Uncover()
+    {
+        Uncovers++;
+    }
+}
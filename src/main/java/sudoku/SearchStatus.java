@@ -0,0 +1,10 @@
+package sudoku;
+
+//How the last search ended. Only Complete means every branch up to the solution limit was explored.
+public enum SearchStatus
+{
+    Complete,
+    Cancelled,
+    DeadlineExpired,
+    NodeBudgetExhausted
+}
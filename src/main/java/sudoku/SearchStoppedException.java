@@ -0,0 +1,18 @@
+package sudoku;
+
+//Thrown by a SolverEngine when its SearchBudget ran out before the search could give a definite answer.
+//Solutions holds what was found up to then, and the first of them has already been written out if asked for.
+public class SearchStoppedException extends RuntimeException
+{
+    private static final long serialVersionUID = 1L;
+
+    public final SearchStatus Status;
+    public final int Solutions;
+
+    public SearchStoppedException(SearchStatus status, int solutions)
+    {
+        super("The search stopped early: " + status + " after " + solutions + " solutions.");
+        Status = status;
+        Solutions = solutions;
+    }
+}
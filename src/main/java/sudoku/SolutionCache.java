@@ -0,0 +1,124 @@
+package sudoku;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+//A bounded least recently used map from canonical puzzles to their solutions, see CachingEngine.
+//Thread safe, so one cache can sit behind the engines of every worker thread.
+public class SolutionCache implements SolutionCacheMXBean
+{
+    private final int Capacity;
+    private final LinkedHashMap<Key, Entry> Entries;
+    private final LongAdder Hits = new LongAdder();
+    private final LongAdder Misses = new LongAdder();
+    private final LongAdder Evictions = new LongAdder();
+
+    //What one search of a canonical puzzle found.
+    static final class Entry
+    {
+        final int Solutions;
+        final int Limit;       //The search stopped at Limit solutions, so Solutions is exact only when it is lower.
+        final byte[] Solution; //The first solution in canonical form, null when there is none.
+
+        Entry(int solutions, int limit, byte[] solution)
+        {
+            Solutions = solutions;
+            Limit = limit;
+            Solution = solution;
+        }
+    }
+
+    private static final class Key
+    {
+        private final byte[] Grid;
+        private final int Hash;
+
+        Key(byte[] grid)
+        {
+            Grid = grid;
+            Hash = Arrays.hashCode(grid);
+        }
+
+        @Override public int hashCode() { return Hash; }
+        @Override public boolean equals(Object other) { return other instanceof Key && Arrays.equals(Grid, ((Key)other).Grid); }
+    }
+
+    public SolutionCache(int capacity)
+    {
+        if (capacity < 1) throw new IllegalArgumentException("The capacity must be at least 1.");
+        Capacity = capacity;
+        Entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest)
+            {
+                if (size() <= Capacity) return false;
+                Evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    //Registers under sudoku:type=SolutionCache,name=<name> on the platform MBean server.
+    public void Register(String name)
+    {
+        MBeans.Register(this, "SolutionCache", name);
+    }
+
+    //Returns the entry for grid if it answers a search stopping at limit solutions, counting a hit or a miss.
+    Entry Get(byte[] grid, int limit)
+    {
+        Entry entry;
+        synchronized (Entries)
+        {
+            entry = Entries.get(new Key(grid));
+        }
+        if (entry != null && (entry.Solutions < entry.Limit || limit <= entry.Limit))
+        {
+            Hits.increment();
+            return entry;
+        }
+        Misses.increment();
+        return null;
+    }
+
+    void Put(byte[] grid, Entry entry)
+    {
+        synchronized (Entries)
+        {
+            Entries.put(new Key(grid), entry);
+        }
+    }
+
+    public void Clear()
+    {
+        synchronized (Entries)
+        {
+            Entries.clear();
+        }
+    }
+
+    @Override public long getHits() { return Hits.sum(); }
+    @Override public long getMisses() { return Misses.sum(); }
+    @Override public long getEvictions() { return Evictions.sum(); }
+    @Override public int getCapacity() { return Capacity; }
+
+    @Override
+    public int getSize()
+    {
+        synchronized (Entries)
+        {
+            return Entries.size();
+        }
+    }
+
+    @Override
+    public double getHitRatio()
+    {
+        long hits = Hits.sum();
+        long lookups = hits + Misses.sum();
+        return lookups == 0 ? 0 : (double)hits / lookups;
+    }
+}
@@ -0,0 +1,12 @@
+package sudoku;
+
+//Counters of a SolutionCache, as exposed over JMX.
+public interface SolutionCacheMXBean
+{
+    long getHits();
+    long getMisses();
+    long getEvictions();
+    int getSize();
+    int getCapacity();
+    double getHitRatio();
+}
@@ -0,0 +1,46 @@
+package sudoku;
+
+//A backend that Sudoku uses to solve grids and check uniqueness.
+//Engines need not be thread safe, code that solves on several threads gives each thread its own.
+public interface SolverEngine
+{
+    //Solves a grid with 0 for empty cells, stopping once limit solutions have been found.
+    //Returns the number of solutions found and writes the first of them into solution unless it is null.
+    //Throws IllegalArgumentException if the givens conflict.
+    default int Solve(byte[][] grid, byte[][] solution, int limit)
+    {
+        return Solve(grid, solution, limit, null);
+    }
+
+    //As above, but gives up with SearchStoppedException once budget runs out, unless it is null. Any solution found
+    //before then has already been written into solution when the exception is thrown.
+    int Solve(byte[][] grid, byte[][] solution, int limit, SearchBudget budget);
+
+    //As above on a flat grid of size x size cells row by row, read from gridOffset and written from solutionOffset.
+    //This copies through rows, engines that can search flat grids directly override it.
+    default int Solve(byte[] grid, int gridOffset, int size, byte[] solution, int solutionOffset, int limit, SearchBudget budget)
+    {
+        ExactCoverEngine.CheckCells(grid, gridOffset, size * size);
+        if (solution != null) ExactCoverEngine.CheckCells(solution, solutionOffset, size * size);
+        byte[][] rows = new byte[size][size];
+        for (int i = 0; i < size; i++) System.arraycopy(grid, gridOffset + (i * size), rows[i], 0, size);
+        byte[][] found = solution == null ? null : new byte[size][size];
+        int solutions;
+        SearchStoppedException stopped = null;
+        try
+        {
+            solutions = Solve(rows, found, limit, budget);
+        }
+        catch (SearchStoppedException e)
+        {
+            solutions = e.Solutions;
+            stopped = e;
+        }
+        if (solutions > 0 && found != null)
+        {
+            for (int i = 0; i < size; i++) System.arraycopy(found[i], 0, solution, solutionOffset + (i * size), size);
+        }
+        if (stopped != null) throw stopped;
+        return solutions;
+    }
+}
@@ -1,185 +1,283 @@
 package sudoku;
 
+import java.util.Arrays;
+import java.util.SplittableRandom;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.HashSet;
-import java.util.List;
-import java.util.ArrayList;
 
 public class Sudoku {
-    public byte[][] Solve(byte[][] input)
+    private static final int DigAttemptsPerGrid = 50;
+    private static final int CluesRestoredWhenStuck = 3;
+    private static final int PuzzlesPerDifficultyBand = 1000;
+
+    private final int BoxSize;
+    private final int Size;  //Rows, columns and digits of the board, BoxSize squared.
+    private final int Cells;
+    private final SolverEngine Engine;
+    private final ExactCoverEngine Generator;
+    private final SplittableRandom Random; //null to use ThreadLocalRandom.
+
+    public Sudoku()
     {
-        byte[][] exactCoverProblem = GenerateExactCoverProblem(input);
+        this(new ExactCoverEngine());
+    }
 
-        ExactCover exactCover = new ExactCover();
-        List<HashSet<Integer>> results = exactCover.GetAllSolutions(exactCoverProblem);
-        if (results.size() > 1) throw new IllegalArgumentException("More than one solution exists.");
-        else return ExactCoverResultToSudoku(results.get(0));
+    public Sudoku(SolverEngine engine)
+    {
+        this(3, engine, null);
     }
 
-    public byte[][] GenerateRandomCompleteGrid()
+    //Generates the same grids and puzzles for the same seed. Not thread safe.
+    public Sudoku(SolverEngine engine, long seed)
     {
-        byte[][] input = new byte[9][9];
-        for(int i = 0; i < 9; i++) {
-            //input[i] = new byte[9];
-            for (int j = 0; j < 9; j++) input[i][j]=0;
-        }
-        byte[][] exactCoverProblem = GenerateExactCoverProblem(input);
+        this(3, engine, new SplittableRandom(seed));
+    }
 
-        Tuple<byte[][], List<Integer>> randomMatrix = RandomiseMatrix(exactCoverProblem);
+    //Boards of boxSize^2 x boxSize^2 cells, so 4 for 16x16 and 5 for 25x25.
+    public Sudoku(int boxSize)
+    {
+        this(boxSize, new ExactCoverEngine(), null);
+    }
 
-        ExactCover exactCover = new ExactCover();
-        HashSet<Integer> result = exactCover.GetFirstSolution(randomMatrix.left);
-        return ExactCoverResultToSudoku(result, randomMatrix.right);
+    //Variants are solved and generated with an ExactCoverEngine built from their constraints.
+    public Sudoku(int boxSize, SolverEngine engine)
+    {
+        this(boxSize, engine, null);
     }
 
-    public byte[][] GeneratePuzzleWithClues(int n)
+    public Sudoku(int boxSize, SolverEngine engine, long seed)
     {
-        if (n < 17) System.out.println("Not possible!");
-        ExactCover exactCover = new ExactCover();
-        byte[][] completedSudoku;
-        byte[][] cluesRemoved;
+        this(boxSize, engine, new SplittableRandom(seed));
+    }
 
-        int attempts = 0;
+    private Sudoku(int boxSize, SolverEngine engine, SplittableRandom random)
+    {
+        if (boxSize < 1 || boxSize * boxSize > Byte.MAX_VALUE) throw new IllegalArgumentException("Unsupported box size " + boxSize + ".");
+        BoxSize = boxSize;
+        Size = boxSize * boxSize;
+        Cells = Size * Size;
+        Engine = engine;
+        Generator = engine instanceof ExactCoverEngine ? (ExactCoverEngine)engine : new ExactCoverEngine();
+        Random = random;
+    }
 
-        do
-        {
-            completedSudoku = GenerateRandomCompleteGrid();
-            cluesRemoved = RemoveClues(completedSudoku, 81-n);
-            attempts++;
-        }
-        while (!exactCover.CheckExactlyOneSolution(GenerateExactCoverProblem(cluesRemoved)));
+    public byte[][] Solve(byte[][] input)
+    {
+        return Solve(input, null);
+    }
 
-        System.out.println("Attempts: " + attempts);
+    //Throws SearchStoppedException if budget runs out before uniqueness is settled.
+    public byte[][] Solve(byte[][] input, SearchBudget budget)
+    {
+        if (input.length != Size) throw new IllegalArgumentException("Expected a " + Size + "x" + Size + " grid.");
 
-        Print(completedSudoku);
-        System.out.println("#########");
-        Print(cluesRemoved);
+        byte[][] solution = new byte[Size][Size];
+        int solutions = Engine.Solve(input, solution, 2, budget);
+        if (solutions > 1) throw new IllegalArgumentException("More than one solution exists.");
+        else if (solutions == 0) throw new IllegalArgumentException("No solution exists.");
+        else return solution;
+    }
 
-        return cluesRemoved;
+    //Flat grids of Size x Size cells row by row, so 81 for classic Sudoku.
+    public byte[] Solve(byte[] input)
+    {
+        if (input.length != Cells) throw new IllegalArgumentException("Expected " + Cells + " cells.");
+        byte[] solution = new byte[Cells];
+        Solve(input, 0, solution, 0, null);
+        return solution;
     }
 
-    private byte[][] RemoveClues(byte[][] input, int numberOfCluesToRemove)
+    //Solves the cells at inputOffset into the caller's solution at solutionOffset, allocating no grids.
+    //Throws SearchStoppedException if budget runs out before uniqueness is settled.
+    public void Solve(byte[] input, int inputOffset, byte[] solution, int solutionOffset, SearchBudget budget)
     {
-        byte[][] output = new byte[9][9];
-        List<Tuple<Integer, Integer>> clues = new ArrayList<Tuple<Integer, Integer>>();
-        for (int i = 0; i < 9; i++) for (int j = 0; j < 9; j++) clues.add(new Tuple<Integer,Integer>(i, j));
-        while(numberOfCluesToRemove > 0)
-        {
-            int r = ThreadLocalRandom.current().nextInt(0, clues.size());
-            clues.remove(r);
-            numberOfCluesToRemove--;
-        }
-        for(Tuple<Integer,Integer> clue : clues)
-        {
-            output[clue.left][clue.right] = input[clue.left][clue.right];
-        }
-        return output;
+        ExactCoverEngine.CheckCells(input, inputOffset, Cells);
+        ExactCoverEngine.CheckCells(solution, solutionOffset, Cells);
+        int solutions = Engine.Solve(input, inputOffset, Size, solution, solutionOffset, 2, budget);
+        if (solutions > 1) throw new IllegalArgumentException("More than one solution exists.");
+        else if (solutions == 0) throw new IllegalArgumentException("No solution exists.");
     }
 
-    private byte[][] GenerateExactCoverProblem(byte[][] input) {
-        byte[][] exactCoverProblem = new byte[324][729];
+    //Searches the shared template in a seeded random order, so there is no matrix to copy or shuffle.
+    //Grids follow the engine's constraints when it is an exact cover engine, otherwise they are classic.
+    public byte[][] GenerateRandomCompleteGrid()
+    {
+        return Generator.RandomCompleteGrid(BoxSize, NextRandom());
+    }
 
-        for (int i = 0; i < 9; i++)
-        {
-            for (int j = 0; j < 9; j++)
-            {
-                for (int z = 0; z < 9; z++)
-                {
-                    boolean setValue = false;
-                    if (input[i][j] == 0) setValue = true;
-                        else if (input[i][j] == (z + 1)) setValue = true;
+    //The same written row by row into grid from offset.
+    public void GenerateRandomCompleteGrid(byte[] grid, int offset)
+    {
+        ExactCoverEngine.CheckCells(grid, offset, Cells);
+        Generator.RandomCompleteGrid(BoxSize, NextRandom(), grid, offset);
+    }
+
+    private SplittableRandom NextRandom()
+    {
+        return Random == null ? new SplittableRandom(ThreadLocalRandom.current().nextLong()) : Random.split();
+    }
 
-                    if (setValue)
-                    {
-                        int row = (i * 81) + (j * 9) + z;
+    //Removes random clues from random complete grids until the puzzle left is unique. Prints nothing, so it can be
+    //timed and called from servers, DigPuzzleWithClues is far faster for low clue counts.
+    public byte[][] GeneratePuzzleWithClues(int n)
+    {
+        byte[] puzzle = new byte[Cells];
+        GeneratePuzzleWithClues(n, puzzle, 0);
+        return ToGrid(puzzle, 0);
+    }
 
-                        //Columns
-                        //Cell constraints
-                        exactCoverProblem[(i * 9) + j][row] = 1;
+    //The same written row by row into puzzle from offset. The uniqueness checks search the flat grid in place.
+    public void GeneratePuzzleWithClues(int n, byte[] puzzle, int offset)
+    {
+        if (n < 0 || n > Cells) throw new IllegalArgumentException("A puzzle cannot have " + n + " clues.");
+        if (BoxSize == 3 && n < 17) throw new IllegalArgumentException("A unique 9x9 puzzle needs at least 17 clues.");
+        ExactCoverEngine.CheckCells(puzzle, offset, Cells);
+        byte[] completedSudoku = new byte[Cells];
 
-                        //Row constraints
-                        exactCoverProblem[81 + (i * 9) + z][row] = 1;
+        do
+        {
+            GenerateRandomCompleteGrid(completedSudoku, 0);
+            RemoveClues(completedSudoku, puzzle, offset, Cells-n);
+        }
+        while (Engine.Solve(puzzle, offset, Size, null, 0, 2, null) != 1);
+    }
 
-                        //Column constraints
-                        exactCoverProblem[162 + (j * 9) + z][row] = 1;
+    //Removes clues one at a time from a single complete grid, keeping a removal only if the puzzle stays unique.
+    //When no clue can be removed it puts a few back and tries again in a new order, and only starts from a new grid
+    //after repeated failures. Every check searches a copy of the shared template, nothing is rebuilt per attempt.
+    public byte[][] DigPuzzleWithClues(int n)
+    {
+        byte[] puzzle = new byte[Cells];
+        DigPuzzleWithClues(n, puzzle, 0);
+        return ToGrid(puzzle, 0);
+    }
 
-                        //Box constraints
-                        exactCoverProblem[243 + (27 * (i / 3)) + (9 * (j / 3)) + z][row] = 1;
+    //The same written row by row into puzzle from offset. The uniqueness checks search the flat grid in place.
+    public void DigPuzzleWithClues(int n, byte[] puzzle, int offset)
+    {
+        DigPuzzleWithClues(n, puzzle, offset, null);
+    }
 
-                    }
-                }
-            }
-        }
+    //Few clues can take grid after grid to reach, so this gives up with SearchStoppedException once budget runs out.
+    //Every uniqueness check is charged to it, so a deadline bounds the whole generation.
+    public void DigPuzzleWithClues(int n, byte[] puzzle, int offset, SearchBudget budget)
+    {
+        if (n < 0 || n > Cells) throw new IllegalArgumentException("A puzzle cannot have " + n + " clues.");
+        if (BoxSize == 3 && n < 17) throw new IllegalArgumentException("A unique 9x9 puzzle needs at least 17 clues.");
+        ExactCoverEngine.CheckCells(puzzle, offset, Cells);
 
-        return exactCoverProblem;
+        byte[] completedSudoku = new byte[Cells];
+        do GenerateRandomCompleteGrid(completedSudoku, 0);
+        while (!Dig(completedSudoku, n, puzzle, offset, budget));
     }
 
+    //Digs puzzles with n clues until one rates from minLevel to maxLevel with DifficultyRater.
+    //Gives up with IllegalStateException if none of the first thousand falls in the band.
+    public byte[][] DigPuzzleWithClues(int n, int minLevel, int maxLevel)
+    {
+        byte[] puzzle = new byte[Cells];
+        DigPuzzleWithClues(n, minLevel, maxLevel, puzzle, 0);
+        return ToGrid(puzzle, 0);
+    }
 
-    private byte[][] ExactCoverResultToSudoku(HashSet<Integer> exactCoverResult){
-        return ExactCoverResultToSudoku(exactCoverResult, null);
+    //The same written row by row into puzzle from offset.
+    public void DigPuzzleWithClues(int n, int minLevel, int maxLevel, byte[] puzzle, int offset)
+    {
+        DigPuzzleWithClues(n, minLevel, maxLevel, puzzle, offset, null);
     }
 
-    private byte[][] ExactCoverResultToSudoku(HashSet<Integer> exactCoverResult,
-                                             List<Integer> rowsRandomOrder)
+    //As above, giving up with SearchStoppedException once budget runs out.
+    public void DigPuzzleWithClues(int n, int minLevel, int maxLevel, byte[] puzzle, int offset, SearchBudget budget)
     {
-        byte[][] sudoku = new byte[9][9];
+        if (!Generator.IsClassic()) throw new IllegalStateException("Only classic puzzles can be rated.");
+        if (minLevel > maxLevel) throw new IllegalArgumentException("The difficulty band is empty.");
 
-        for (int resultRowName : exactCoverResult)
+        for (int attempt = 0; attempt < PuzzlesPerDifficultyBand; attempt++)
         {
-            int rowName;
-            if (rowsRandomOrder == null)
-                rowName = resultRowName;
-            else
-                rowName = rowsRandomOrder.get(resultRowName);
-
-            int i = rowName / 81;
-            int j = (rowName % 81) / 9;
-            byte value = (byte)((rowName % 9) + 1);
-            sudoku[i][j] = value;
+            DigPuzzleWithClues(n, puzzle, offset, budget);
+            int level = DifficultyRater.Rate(ToGrid(puzzle, offset)).Level;
+            if (level >= minLevel && level <= maxLevel) return;
         }
-
-        return sudoku;
+        throw new IllegalStateException("No puzzle with " + n + " clues rated from " + minLevel + " to " + maxLevel + ".");
     }
 
-    public Tuple<byte[][], List<Integer>> RandomiseMatrix(byte[][] input)
+    //Digs the complete grid into puzzle at offset, returning false if it has no unique puzzle with n clues found in time.
+    private boolean Dig(byte[] completedSudoku, int n, byte[] puzzle, int offset, SearchBudget budget)
     {
-        int x = input.length;
-        int y = input[0].length;
-        byte[][] output = new byte[x][y];
+        System.arraycopy(completedSudoku, 0, puzzle, offset, Cells);
 
-        List<Integer> xHeaders = new ArrayList<Integer>();
-        List<Integer> yHeaders = new ArrayList<Integer>();
-        for(int n = 0; n < x; n++)
-        {
-            int r = ThreadLocalRandom.current().nextInt(0, n + 1);
-            xHeaders.add(r, n);
-        }
-        for (int n = 0; n < y; n++)
-        {
-            int r = ThreadLocalRandom.current().nextInt(0, n + 1);
-            yHeaders.add(r, n);
-        }
+        //cells[0..clues) are still clues, the rest have been removed.
+        int[] cells = new int[Cells];
+        for (int k = 0; k < Cells; k++) cells[k] = k;
+        int clues = Cells;
 
-        for(int i = 0; i < x; i++)
+        for (int attempt = 0; attempt < DigAttemptsPerGrid; attempt++)
         {
-            for (int j = 0; j < y; j++)
+            Shuffle(cells, clues);
+
+            //One pass is enough: a clue that cannot be removed now cannot be removed after others have gone.
+            for (int k = clues - 1; k >= 0 && clues > n; k--)
+            {
+                int cell = cells[k];
+                puzzle[offset + cell] = 0;
+                if (Engine.Solve(puzzle, offset, Size, null, 0, 2, budget) == 1)
+                {
+                    cells[k] = cells[clues - 1];
+                    cells[--clues] = cell;
+                }
+                else puzzle[offset + cell] = completedSudoku[cell];
+            }
+            if (clues == n) return true;
+
+            //Stuck: put back a few of the removed clues at random.
+            for (int restored = 0; restored < CluesRestoredWhenStuck && clues < Cells; restored++)
             {
-                output[i][j] = input[xHeaders.get(i)][yHeaders.get(j)];
+                int k = clues + NextInt(Cells - clues);
+                int cell = cells[k];
+                cells[k] = cells[clues];
+                cells[clues++] = cell;
+                puzzle[offset + cell] = completedSudoku[cell];
             }
         }
 
-        return new Tuple<>(output, yHeaders);
+        return false;
     }
 
-    private void Print(byte[][] sudoku)
+    private void Shuffle(int[] values, int length)
     {
-        for (int i = 0; i < 9; i++)
+        for (int k = length - 1; k > 0; k--)
         {
-            for (int j = 0; j < 9; j++)
-            {
-                System.out.print(sudoku[i][j]);
-            }
-            System.out.println();
+            int r = NextInt(k + 1);
+            int value = values[k];
+            values[k] = values[r];
+            values[r] = value;
+        }
+    }
+
+    private int NextInt(int bound)
+    {
+        return Random == null ? ThreadLocalRandom.current().nextInt(bound) : Random.nextInt(bound);
+    }
+
+    //Keeps a random Cells - numberOfCluesToRemove of the clues, chosen by a partial shuffle of the cells.
+    private void RemoveClues(byte[] input, byte[] output, int offset, int numberOfCluesToRemove)
+    {
+        int[] cells = new int[Cells];
+        for (int k = 0; k < Cells; k++) cells[k] = k;
+        int clues = Cells;
+        while (numberOfCluesToRemove > 0)
+        {
+            int r = NextInt(clues);
+            cells[r] = cells[--clues];
+            numberOfCluesToRemove--;
         }
+        Arrays.fill(output, offset, offset + Cells, (byte)0);
+        for (int k = 0; k < clues; k++) output[offset + cells[k]] = input[cells[k]];
+    }
+
+    private byte[][] ToGrid(byte[] cells, int offset)
+    {
+        byte[][] grid = new byte[Size][Size];
+        for (int i = 0; i < Size; i++) System.arraycopy(cells, offset + (i * Size), grid[i], 0, Size);
+        return grid;
     }
 }
@@ -0,0 +1,338 @@
+package sudoku;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//A small HTTP service for 9x9 puzzles on the JDK's built-in server, with no other dependencies.
+//  POST /solve     81 character puzzle, 0 or . for empty cells. Replies with the solution.
+//  POST /validate  The same, replying unique, multiple or none.
+//  GET  /generate  ?clues=n, optionally &seed=s and &minLevel=a&maxLevel=b to target a DifficultyRater band.
+//  GET  /metrics   Request counts and latency quantiles per endpoint.
+//Each request runs on its own virtual thread where the JVM has them, otherwise on a cached pool. Engines keep their
+//search state between calls and are not thread safe, so they are borrowed from a pool rather than made per request
+//or per thread. Generation takes far longer than solving, so only a fixed number run at once and the rest are
+//turned away with 503 rather than queued. Each generation also has a deadline, so a clue count too low to reach
+//in reasonable time answers 503 rather than holding its permit for good.
+public class SudokuServer implements AutoCloseable
+{
+    private static final int MaxBody = 1 << 12;
+    private static final long GenerationWaitMillis = 100;
+    private static final long DefaultGenerationTimeoutMillis = 10_000;
+    private static final String TimerAttribute = "sudoku.timer";
+
+    private final HttpServer Server;
+    private final ExecutorService Requests;
+    private final ConcurrentLinkedQueue<SolverEngine> Engines = new ConcurrentLinkedQueue<>();
+    private final Semaphore Generators;
+    private final long TimeoutMillis;
+    private final long GenerationTimeoutMillis;
+    private final Map<String, LatencyHistogram> Latencies = new LinkedHashMap<>();
+
+    //Binds to address, port 0 picks a free one. At most generators puzzles are generated at once, and every
+    //solve or validation gets timeoutMillis, or no limit if 0.
+    public SudokuServer(InetSocketAddress address, int generators, long timeoutMillis) throws IOException
+    {
+        this(address, generators, timeoutMillis, DefaultGenerationTimeoutMillis);
+    }
+
+    //Every generation gets generationTimeoutMillis, which must be set.
+    public SudokuServer(InetSocketAddress address, int generators, long timeoutMillis, long generationTimeoutMillis) throws IOException
+    {
+        if (generators < 1) throw new IllegalArgumentException("At least one generator is required.");
+        if (timeoutMillis < 0) throw new IllegalArgumentException("The timeout cannot be negative.");
+        if (generationTimeoutMillis < 1) throw new IllegalArgumentException("Generation needs a timeout.");
+        Generators = new Semaphore(generators);
+        TimeoutMillis = timeoutMillis;
+        GenerationTimeoutMillis = generationTimeoutMillis;
+
+        Server = HttpServer.create(address, 0);
+        Requests = NewRequestExecutor();
+        Server.setExecutor(Requests);
+        Handle("/solve", this::Solve);
+        Handle("/validate", this::Validate);
+        Handle("/generate", this::Generate);
+        Server.createContext("/metrics", exchange -> Reply(exchange, 200, Metrics()));
+    }
+
+    public void Start()
+    {
+        Server.start();
+    }
+
+    public int Port()
+    {
+        return Server.getAddress().getPort();
+    }
+
+    //The latencies of one endpoint, such as /solve.
+    public LatencyHistogram Latency(String path)
+    {
+        return Latencies.get(path);
+    }
+
+    @Override
+    public void close()
+    {
+        Server.stop(0);
+        Requests.shutdownNow();
+    }
+
+    //Virtual threads arrived in Java 21, after the version this project targets, so they are looked up reflectively.
+    static ExecutorService NewRequestExecutor()
+    {
+        try
+        {
+            return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    private interface Endpoint
+    {
+        void Handle(HttpExchange exchange) throws IOException;
+    }
+
+    //Times one request. It is recorded just before the reply goes out, so a client holding its answer also finds it
+    //counted in /metrics, or when the handler ends if nothing was sent.
+    private static class Timer
+    {
+        private final LatencyHistogram Latency;
+        private final long Start = System.nanoTime();
+        private boolean Recorded;
+
+        Timer(LatencyHistogram latency)
+        {
+            Latency = latency;
+        }
+
+        void Record()
+        {
+            if (Recorded) return;
+            Recorded = true;
+            Latency.Record(System.nanoTime() - Start);
+        }
+    }
+
+    private void Handle(String path, Endpoint endpoint)
+    {
+        LatencyHistogram latency = new LatencyHistogram();
+        Latencies.put(path, latency);
+        Server.createContext(path, exchange ->
+        {
+            Timer timer = new Timer(latency);
+            exchange.setAttribute(TimerAttribute, timer);
+            try
+            {
+                endpoint.Handle(exchange);
+            }
+            catch (IllegalArgumentException e)
+            {
+                Reply(exchange, 400, e.getMessage());
+            }
+            catch (SearchStoppedException e)
+            {
+                Reply(exchange, 503, "timeout");
+            }
+            finally
+            {
+                timer.Record();
+                exchange.close();
+            }
+        });
+    }
+
+    private void Solve(HttpExchange exchange) throws IOException
+    {
+        if (!Method(exchange, "POST")) return;
+        byte[] puzzle = PuzzleCodec.Parse(Body(exchange));
+        byte[] solution = new byte[PuzzleCodec.Cells];
+        int solutions = Search(puzzle, solution);
+        if (solutions == 1) Reply(exchange, 200, PuzzleCodec.Format(solution, 0, PuzzleCodec.Zeros));
+        else Reply(exchange, 422, Verdict(solutions));
+    }
+
+    private void Validate(HttpExchange exchange) throws IOException
+    {
+        if (!Method(exchange, "POST")) return;
+        Reply(exchange, 200, Verdict(Search(PuzzleCodec.Parse(Body(exchange)), null)));
+    }
+
+    private void Generate(HttpExchange exchange) throws IOException
+    {
+        if (!Method(exchange, "GET")) return;
+        Map<String, String> query = Query(exchange);
+        int clues = Integer.parseInt(query.getOrDefault("clues", "30"));
+        if (clues < 17 || clues > 81) throw new IllegalArgumentException("A unique puzzle needs between 17 and 81 clues.");
+        long seed = query.containsKey("seed") ? Long.parseLong(query.get("seed")) : ThreadLocalRandom.current().nextLong();
+        int minLevel = Integer.parseInt(query.getOrDefault("minLevel", "0"));
+        int maxLevel = Integer.parseInt(query.getOrDefault("maxLevel", String.valueOf(DifficultyRater.MaxLevel)));
+
+        boolean permitted;
+        try
+        {
+            permitted = Generators.tryAcquire(GenerationWaitMillis, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            permitted = false;
+        }
+        if (!permitted)
+        {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            Reply(exchange, 503, "busy");
+            return;
+        }
+
+        SolverEngine engine = Borrow();
+        try
+        {
+            Sudoku sudoku = new Sudoku(engine, seed);
+            byte[] puzzle = new byte[PuzzleCodec.Cells];
+            SearchBudget budget = new SearchBudget(GenerationTimeoutMillis, TimeUnit.MILLISECONDS);
+            if (minLevel == 0 && maxLevel >= DifficultyRater.MaxLevel) sudoku.DigPuzzleWithClues(clues, puzzle, 0, budget);
+            else sudoku.DigPuzzleWithClues(clues, minLevel, maxLevel, puzzle, 0, budget);
+            Reply(exchange, 200, PuzzleCodec.Format(puzzle, 0, PuzzleCodec.Zeros));
+        }
+        catch (IllegalStateException e)
+        {
+            Reply(exchange, 422, e.getMessage());
+        }
+        finally
+        {
+            Engines.add(engine);
+            Generators.release();
+        }
+    }
+
+    private int Search(byte[] puzzle, byte[] solution)
+    {
+        SolverEngine engine = Borrow();
+        try
+        {
+            return engine.Solve(puzzle, 0, 9, solution, 0, 2, TimeoutMillis == 0 ? null : new SearchBudget(TimeoutMillis, TimeUnit.MILLISECONDS));
+        }
+        finally
+        {
+            Engines.add(engine);
+        }
+    }
+
+    //The pool only grows to the number of requests that were ever in flight at once.
+    private SolverEngine Borrow()
+    {
+        SolverEngine engine = Engines.poll();
+        return engine == null ? new BitboardEngine() : engine;
+    }
+
+    private String Metrics()
+    {
+        StringBuilder metrics = new StringBuilder();
+        for (Map.Entry<String, LatencyHistogram> entry : Latencies.entrySet())
+        {
+            LatencyHistogram latency = entry.getValue();
+            metrics.append(entry.getKey())
+                .append(" count=").append(latency.Count())
+                .append(" p50_us=").append(latency.QuantileMicros(0.5))
+                .append(" p99_us=").append(latency.QuantileMicros(0.99))
+                .append(" p999_us=").append(latency.QuantileMicros(0.999))
+                .append(" max_us=").append(latency.MaxNanos() / 1000)
+                .append('\n');
+        }
+        metrics.append("generators_available=").append(Generators.availablePermits()).append('\n');
+        return metrics.toString();
+    }
+
+    private static String Verdict(int solutions)
+    {
+        return solutions == 1 ? "unique" : solutions > 1 ? "multiple" : "none";
+    }
+
+    private static boolean Method(HttpExchange exchange, String method) throws IOException
+    {
+        if (exchange.getRequestMethod().equals(method)) return true;
+        exchange.getResponseHeaders().set("Allow", method);
+        Reply(exchange, 405, "Use " + method + ".");
+        return false;
+    }
+
+    private static String Body(HttpExchange exchange) throws IOException
+    {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[512];
+        try (InputStream in = exchange.getRequestBody())
+        {
+            for (int read; (read = in.read(buffer)) != -1; )
+            {
+                body.write(buffer, 0, read);
+                if (body.size() > MaxBody) throw new IllegalArgumentException("The request is too large.");
+            }
+        }
+        return new String(body.toByteArray(), StandardCharsets.US_ASCII).trim();
+    }
+
+    private static Map<String, String> Query(HttpExchange exchange)
+    {
+        Map<String, String> query = new LinkedHashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) return query;
+        for (String pair : raw.split("&"))
+        {
+            int equals = pair.indexOf('=');
+            if (equals > 0) query.put(pair.substring(0, equals), pair.substring(equals + 1));
+        }
+        return query;
+    }
+
+    private static void Reply(HttpExchange exchange, int status, String body) throws IOException
+    {
+        byte[] bytes = (body + "\n").getBytes(StandardCharsets.US_ASCII);
+        Timer timer = (Timer)exchange.getAttribute(TimerAttribute);
+        if (timer != null) timer.Record();
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=us-ascii");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody())
+        {
+            out.write(bytes);
+        }
+    }
+
+    //Usage: SudokuServer [--port n] [--generators n] [--timeout ms] [--generate-timeout ms]
+    public static void main(String[] args) throws IOException
+    {
+        int port = 8080;
+        int generators = Runtime.getRuntime().availableProcessors();
+        long timeoutMillis = 1000;
+        long generationTimeoutMillis = DefaultGenerationTimeoutMillis;
+        for (int a = 0; a < args.length; a++)
+        {
+            if (args[a].equals("--port")) port = Integer.parseInt(args[++a]);
+            else if (args[a].equals("--generators")) generators = Integer.parseInt(args[++a]);
+            else if (args[a].equals("--timeout")) timeoutMillis = Long.parseLong(args[++a]);
+            else if (args[a].equals("--generate-timeout")) generationTimeoutMillis = Long.parseLong(args[++a]);
+            else throw new IllegalArgumentException("Unknown option " + args[a]);
+        }
+
+        SudokuServer server = new SudokuServer(new InetSocketAddress(port), generators, timeoutMillis, generationTimeoutMillis);
+        server.Start();
+        System.out.println("Listening on port " + server.Port() + ".");
+    }
+}
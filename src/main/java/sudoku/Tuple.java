@@ -1,11 +0,0 @@
-package sudoku;
-
-public class Tuple<A, B>{
-    public A left;
-    public B right;
-
-    public Tuple(A a, B b){
-        left = a;
-        right = b;
-    }
-}
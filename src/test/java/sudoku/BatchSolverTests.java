@@ -0,0 +1,68 @@
+package sudoku;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchSolverTests {
+    private static final String Puzzle = "620310098000000010105802630082000000003009480510700020000051000030070059400203060";
+    private static final String DotPuzzle = "8..........36......7..9.2...5...7.......457.....1...3...1....68..85...1..9....4..";
+
+    @Test
+    public void Run(@TempDir Path directory) throws IOException
+    {
+        Path input = directory.resolve("puzzles.txt");
+        Path output = directory.resolve("solutions.txt");
+        Files.write(input, Arrays.asList(Puzzle, "", DotPuzzle, "not a puzzle", new String(new char[81]).replace('\0', '0')),
+            StandardCharsets.US_ASCII);
+
+        BatchSolver.Summary summary = new BatchSolver(BitboardEngine::new, 2, false).Run(input, output);
+        assertEquals(5, summary.Puzzles);
+
+        List<String> lines = Files.readAllLines(output, StandardCharsets.US_ASCII);
+        assertEquals(5, lines.size());
+        assertEquals(Solve(Puzzle), lines.get(0));
+        assertEquals("invalid", lines.get(1));
+        assertEquals(Solve(DotPuzzle), lines.get(2));
+        assertEquals("invalid", lines.get(3));
+        assertEquals("multiple", lines.get(4));
+    }
+
+    @Test
+    public void Run_Verdicts(@TempDir Path directory) throws IOException
+    {
+        Path input = directory.resolve("puzzles.txt");
+        Path output = directory.resolve("verdicts.txt");
+        Files.write(input, Arrays.asList(Puzzle, "11" + Puzzle.substring(2)), StandardCharsets.US_ASCII);
+
+        new BatchSolver(ExactCoverEngine::new, 1, true).Run(input, output);
+
+        assertEquals(Arrays.asList("unique", "invalid"), Files.readAllLines(output, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void Run_BlankLines(@TempDir Path directory) throws IOException
+    {
+        //Blank lines, with or without a carriage return, keep their place in the output.
+        Path input = directory.resolve("puzzles.txt");
+        Path output = directory.resolve("verdicts.txt");
+        Files.write(input, ("\n" + Puzzle + "\r\n\r\n\n" + Puzzle + "\n").getBytes(StandardCharsets.US_ASCII));
+
+        new BatchSolver(BitboardEngine::new, 1, true).Run(input, output);
+
+        assertEquals(Arrays.asList("invalid", "unique", "invalid", "invalid", "unique"), Files.readAllLines(output, StandardCharsets.US_ASCII));
+    }
+
+    private static String Solve(String puzzle)
+    {
+        return PuzzleCodec.Format(new Sudoku().Solve(PuzzleCodec.Parse(puzzle)), 0, PuzzleCodec.Zeros);
+    }
+}
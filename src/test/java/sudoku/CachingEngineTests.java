@@ -0,0 +1,120 @@
+package sudoku;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingEngineTests {
+    private static final byte[][] Puzzle =
+    {
+        { 6, 2, 0, 3, 1, 0, 0, 9, 8 },
+        { 0, 0, 0, 0, 0, 0, 0, 1, 0 },
+        { 1, 0, 5, 8, 0, 2, 6, 3, 0 },
+        { 0, 8, 2, 0, 0, 0, 0, 0, 0 },
+        { 0, 0, 3, 0, 0, 9, 4, 8, 0 },
+        { 5, 1, 0, 7, 0, 0, 0, 2, 0 },
+        { 0, 0, 0, 0, 5, 1, 0, 0, 0 },
+        { 0, 3, 0, 0, 7, 0, 0, 5, 9 },
+        { 4, 0, 0, 2, 0, 3, 0, 6, 0 },
+    };
+
+    @Test
+    public void Repeated()
+    {
+        SolutionCache cache = new SolutionCache(16);
+        CachingEngine engine = new CachingEngine(new BitboardEngine(), cache);
+
+        byte[][] first = new byte[9][9];
+        byte[][] second = new byte[9][9];
+        assertEquals(1, engine.Solve(Puzzle, first, 2));
+        assertEquals(1, engine.Solve(Puzzle, second, 2));
+        assertArrayEquals(first, second);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void Equivalent()
+    {
+        SolutionCache cache = new SolutionCache(16);
+        CachingEngine engine = new CachingEngine(new ExactCoverEngine(), cache);
+        byte[][] solution = new byte[9][9];
+        engine.Solve(Puzzle, solution, 2);
+
+        //Transposing and relabelling the digits always lands on the same canonical form.
+        byte[][] relabelled = new byte[9][9];
+        for (int i = 0; i < 9; i++)
+        {
+            for (int j = 0; j < 9; j++) relabelled[j][i] = Puzzle[i][j] == 0 ? 0 : (byte)(10 - Puzzle[i][j]);
+        }
+        byte[][] relabelledSolution = new byte[9][9];
+        assertEquals(1, engine.Solve(relabelled, relabelledSolution, 2));
+        assertEquals(1, cache.getHits());
+        for (int i = 0; i < 9; i++)
+        {
+            for (int j = 0; j < 9; j++) assertEquals(10 - solution[i][j], relabelledSolution[j][i]);
+        }
+
+        //Whether or not it hits, a cached answer must map back to the puzzle it was asked for.
+        byte[][] swapped = new byte[9][];
+        int[] rows = { 7, 6, 8, 3, 5, 4, 1, 0, 2 };
+        for (int i = 0; i < 9; i++) swapped[i] = Puzzle[rows[i]].clone();
+        byte[][] swappedSolution = new byte[9][9];
+        assertEquals(1, engine.Solve(swapped, swappedSolution, 2));
+        for (int i = 0; i < 9; i++) assertArrayEquals(solution[rows[i]], swappedSolution[i]);
+    }
+
+    @Test
+    public void Limits()
+    {
+        SolutionCache cache = new SolutionCache(16);
+        CachingEngine engine = new CachingEngine(new ExactCoverEngine(), cache);
+        byte[][] empty = new byte[9][9];
+
+        assertEquals(1, engine.Solve(empty, null, 1));
+        //A search stopped at one solution cannot say whether there is a second.
+        assertEquals(2, engine.Solve(empty, null, 2));
+        assertEquals(1, engine.Solve(empty, null, 1));
+        assertEquals(2, cache.getMisses());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void Eviction()
+    {
+        SolutionCache cache = new SolutionCache(1);
+        CachingEngine engine = new CachingEngine(new BitboardEngine(), cache);
+        byte[][] fewer = new byte[9][];
+        for (int i = 0; i < 9; i++) fewer[i] = Puzzle[i].clone();
+        fewer[0][0] = 0;
+
+        engine.Solve(Puzzle, null, 2);
+        engine.Solve(fewer, null, 2);
+        engine.Solve(Puzzle, null, 2);
+        assertEquals(0, cache.getHits());
+        assertEquals(2, cache.getEvictions());
+        assertEquals(1, cache.getSize());
+    }
+
+    @Test
+    public void Invalid()
+    {
+        SolutionCache cache = new SolutionCache(16);
+        CachingEngine engine = new CachingEngine(new BitboardEngine(), cache);
+        byte[][] conflicting = new byte[9][];
+        for (int i = 0; i < 9; i++) conflicting[i] = Puzzle[i].clone();
+        conflicting[0][2] = 6;
+
+        assertThrows(IllegalArgumentException.class, () -> engine.Solve(conflicting, null, 2));
+        assertEquals(0, cache.getSize());
+        assertThrows(IllegalArgumentException.class,
+            () -> new CachingEngine(new ExactCoverEngine(Constraints.Classic(Constraints.Diagonals())), cache));
+    }
+
+    @Test
+    public void Sudoku()
+    {
+        Sudoku sudoku = new Sudoku(new CachingEngine(new BitboardEngine(), new SolutionCache(16)));
+        assertArrayEquals(sudoku.Solve(Puzzle), sudoku.Solve(Puzzle));
+    }
+}
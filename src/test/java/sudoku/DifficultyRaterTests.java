@@ -0,0 +1,67 @@
+package sudoku;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DifficultyRaterTests {
+    private static final String Easy = "620310098000000010105802630082000000003009480510700020000051000030070059400203060";
+    private static final String Hard = "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+
+    @Test
+    public void Rate()
+    {
+        DifficultyRater.Rating easy = DifficultyRater.Rate(PuzzleCodec.ParseGrid(Easy));
+        assertEquals(1, easy.Solutions);
+        assertEquals(0, easy.Guesses);
+        assertEquals(0, easy.Level);
+        assertEquals(1.0, easy.ForcedFraction());
+        //Every empty cell is a forced choice, including those made by propagating singles before the search.
+        assertEquals(48, easy.ForcedChoices);
+        assertEquals(48, easy.MaxDepth);
+        assertEquals(49, easy.Nodes);
+
+        DifficultyRater.Rating hard = DifficultyRater.Rate(PuzzleCodec.ParseGrid(Hard));
+        assertEquals(1, hard.Solutions);
+        assertTrue(hard.Guesses > 0);
+        assertTrue(hard.Backtracks > 0);
+        assertTrue(hard.Level > 100);
+        assertEquals(new Sudoku().Solve(PuzzleCodec.ParseGrid(Hard))[0][1], hard.Solution[0][1]);
+
+        assertEquals(2, DifficultyRater.Rate(new byte[9][9]).Solutions);
+    }
+
+    @Test
+    public void Rate_Batch()
+    {
+        List<byte[][]> puzzles;
+        try (PuzzleGenerator generator = new PuzzleGenerator(BitboardEngine::new, 2))
+        {
+            puzzles = generator.Generate(40, 24, 3).collect(Collectors.toCollection(ArrayList::new));
+        }
+        byte[][] conflicting = PuzzleCodec.ParseGrid(Easy);
+        conflicting[0][2] = 6;
+        puzzles.add(conflicting);
+
+        DifficultyRater.Rating[] ratings;
+        try (DifficultyRater rater = new DifficultyRater(3))
+        {
+            ratings = rater.Rate(puzzles);
+        }
+
+        assertEquals(41, ratings.length);
+        assertNull(ratings[40]);
+        for (int p = 0; p < 40; p++)
+        {
+            DifficultyRater.Rating rating = DifficultyRater.Rate(puzzles.get(p));
+            assertEquals(rating.Level, ratings[p].Level);
+            assertEquals(rating.Nodes, ratings[p].Nodes);
+            assertTrue(Arrays.deepEquals(rating.Solution, ratings[p].Solution));
+        }
+    }
+}
@@ -4,8 +4,14 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -185,4 +191,330 @@ class ExactCoverTests {
         boolean result = exactCover.MoreThanOneSolution(input);
         assertFalse(result);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void AddRow()
+    {
+        ExactCover exactCover = SixRows();
+
+        List<HashSet<Integer>> results = exactCover.GetAllSolutions();
+        assertEquals(1, results.size());
+        HashSet<Integer> result = results.get(0);
+        assertEquals(3, result.size());
+        assertTrue(result.contains(0));
+        assertTrue(result.contains(3));
+        assertTrue(result.contains(4));
+
+        assertTrue(exactCover.CheckExactlyOneSolution()); //Links are restored so the problem can be searched again.
+    }
+
+    @Test
+    public void AddRow_RepeatedColumn()
+    {
+        ExactCover exactCover = new ExactCover(3);
+        assertThrows(IllegalArgumentException.class, () -> exactCover.AddRow(0, 1, 1));
+    }
+
+    @Test
+    public void Select()
+    {
+        ExactCover template = new ExactCover(4);
+        template.AddRow(0, 0, 2);
+        template.AddRow(1, 1, 3);
+        template.AddRow(2, 0, 3);
+        template.AddRow(3, 1, 2);
+        template.Freeze();
+
+        ExactCover exactCover = new ExactCover(template);
+        assertTrue(exactCover.Select(2));
+        assertFalse(exactCover.Select(0)); //Clashes with row 2 on column 0.
+
+        List<HashSet<Integer>> results = exactCover.GetAllSolutions();
+        assertEquals(1, results.size());
+        assertTrue(results.get(0).contains(2));
+        assertTrue(results.get(0).contains(3));
+
+        assertEquals(2, new ExactCover(template).GetAllSolutions().size()); //The template is untouched.
+        assertThrows(IllegalStateException.class, template::GetAllSolutions);
+    }
+
+    @Test
+    public void Parallel()
+    {
+        ExactCover exactCover = Matchings(8);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            List<HashSet<Integer>> expected = exactCover.GetAllSolutions();
+            assertEquals(105, expected.size());
+            assertEquals(expected, exactCover.GetAllSolutions(pool, 2));
+            assertEquals(expected, exactCover.GetAllSolutions(pool, 0));
+            assertTrue(exactCover.MoreThanOneSolution(pool, 2));
+            assertEquals(4, exactCover.GetFirstSolution(pool, 3).size());
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void CountSolutions()
+    {
+        ExactCover exactCover = Matchings(8);
+
+        assertEquals(105, exactCover.CountSolutions(Integer.MAX_VALUE));
+        assertEquals(2, exactCover.CountSolutions(2));
+
+        int[] firstSolution = new int[8];
+        assertEquals(1, exactCover.CountSolutions(1, firstSolution));
+        HashSet<Integer> expected = exactCover.GetFirstSolution();
+        for (int i = 0; i < 4; i++) assertTrue(expected.contains(firstSolution[i]));
+        for (int i = 4; i < 8; i++) assertEquals(-1, firstSolution[i]);
+    }
+
+    @Test
+    public void Statistics()
+    {
+        ExactCover exactCover = SixRows();
+
+        SearchMetrics metrics = new SearchMetrics();
+        SearchStatistics statistics = new SearchStatistics(metrics);
+        exactCover.SetStatistics(statistics);
+        exactCover.GetAllSolutions();
+
+        assertEquals(1, statistics.Solutions());
+        assertEquals(3, statistics.MaxDepth());
+        assertEquals(1, statistics.NodesAtDepth(0));
+        assertEquals(2.0, statistics.BranchingFactor(0)); //Column 0 has two rows.
+        assertEquals(statistics.Covers(), statistics.Uncovers());
+        assertTrue(statistics.Backtracks() > 0);
+
+        exactCover.CountSolutions(2);
+        assertEquals(2, metrics.getSearches());
+        assertEquals(2, metrics.getSolutions());
+        assertEquals(2 * statistics.Nodes(), metrics.getNodes());
+    }
+
+    @Test
+    public void SecondaryColumns()
+    {
+        ExactCover exactCover = Queens();
+
+        assertEquals(92, exactCover.CountSolutions(Integer.MAX_VALUE));
+        assertEquals(8, exactCover.GetFirstSolution().size());
+    }
+
+    @Test
+    public void Budget()
+    {
+        ExactCover exactCover = Matchings(8);
+
+        SearchBudget nodes = SearchBudget.Nodes(20);
+        exactCover.SetBudget(nodes);
+        int partial = exactCover.CountSolutions(Integer.MAX_VALUE);
+        assertEquals(SearchStatus.NodeBudgetExhausted, exactCover.Status());
+        assertEquals(20, nodes.Nodes());
+        assertTrue(partial > 0 && partial < 105);
+
+        SearchBudget cancelled = new SearchBudget();
+        cancelled.Cancel();
+        exactCover.SetBudget(cancelled);
+        assertEquals(0, exactCover.GetAllSolutions().size());
+        assertEquals(SearchStatus.Cancelled, exactCover.Status());
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try
+        {
+            //The branches share one count, so five nodes reach at most one solution however the search is split.
+            SearchBudget shared = SearchBudget.Nodes(5);
+            exactCover.SetBudget(shared);
+            assertTrue(exactCover.GetAllSolutions(pool, 2).size() <= 1);
+            assertEquals(SearchStatus.NodeBudgetExhausted, exactCover.Status());
+            assertEquals(5, shared.Nodes());
+
+            //A frozen template may be searched by many threads at once, so the outcome stays on the budget.
+            ExactCover template = new ExactCover(exactCover);
+            template.Freeze();
+            SearchBudget budget = SearchBudget.Nodes(5);
+            template.SetBudget(budget);
+            assertTrue(template.GetAllSolutions(pool, 2).size() <= 1);
+            assertEquals(SearchStatus.NodeBudgetExhausted, budget.Status());
+            assertEquals(SearchStatus.Complete, template.Status());
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+
+        //A stopped search leaves the links as they were.
+        exactCover.SetBudget(new SearchBudget(1, TimeUnit.MINUTES));
+        assertEquals(105, exactCover.CountSolutions(Integer.MAX_VALUE));
+        assertEquals(SearchStatus.Complete, exactCover.Status());
+    }
+
+    @Test
+    public void Budget_Deadline() throws InterruptedException
+    {
+        ExactCover exactCover = Matchings(8);
+
+        SearchBudget budget = new SearchBudget(1, TimeUnit.NANOSECONDS);
+        Thread.sleep(1);
+        exactCover.SetBudget(budget);
+        assertEquals(0, exactCover.CountSolutions(Integer.MAX_VALUE));
+        assertEquals(SearchStatus.DeadlineExpired, exactCover.Status());
+    }
+
+    @Test
+    public void SolutionIterator()
+    {
+        ExactCover exactCover = Matchings(8);
+        List<HashSet<Integer>> expected = exactCover.GetAllSolutions();
+
+        Iterator<int[]> solutions = exactCover.SolutionIterator();
+        for (HashSet<Integer> solution : expected)
+        {
+            assertTrue(solutions.hasNext());
+            assertEquals(solution, Arrays.stream(solutions.next()).boxed().collect(Collectors.toSet()));
+        }
+        assertFalse(solutions.hasNext());
+
+        //Selected rows come first in every solution.
+        exactCover.Select(0);
+        exactCover.Freeze();
+        assertEquals(15, exactCover.SolutionStream().peek(solution -> assertEquals(0, solution[0])).count());
+
+        SearchBudget budget = SearchBudget.Nodes(10);
+        exactCover.SetBudget(budget);
+        assertTrue(exactCover.SolutionStream().count() < 15);
+        assertEquals(SearchStatus.NodeBudgetExhausted, budget.Status());
+        assertEquals(SearchStatus.Complete, exactCover.Status()); //The shared template is not written to.
+    }
+
+    @Test
+    public void SolutionStream()
+    {
+        //The perfect matchings of 30 points are far too many to list, but the first few come straight away.
+        ExactCover matchings = Matchings(30);
+        List<int[]> first = matchings.SolutionStream().limit(3).collect(Collectors.toList());
+        assertEquals(3, first.size());
+        for (int[] solution : first) assertEquals(15, solution.length);
+
+        ExactCover queens = Queens();
+        List<List<Integer>> sequential = queens.SolutionStream()
+            .map(solution -> Arrays.stream(solution).boxed().collect(Collectors.toList())).collect(Collectors.toList());
+        List<List<Integer>> parallel = queens.SolutionStream().parallel()
+            .map(solution -> Arrays.stream(solution).boxed().collect(Collectors.toList())).collect(Collectors.toList());
+        assertEquals(92, sequential.size());
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    public void Propagate()
+    {
+        //Column 0 forces row 0, which leaves row 3 alone in column 2.
+        ExactCover exactCover = new ExactCover(4);
+        exactCover.AddRow(0, 0, 1);
+        exactCover.AddRow(1, 1, 2);
+        exactCover.AddRow(2, 1, 3);
+        exactCover.AddRow(3, 2, 3);
+        assertTrue(exactCover.Propagate());
+
+        SearchStatistics statistics = new SearchStatistics();
+        exactCover.SetStatistics(statistics);
+        int[] solution = new int[4];
+        assertEquals(1, exactCover.CountSolutions(2, solution));
+        assertEquals(3, statistics.Nodes()); //The two propagated rows, then the solution.
+        assertEquals(2, statistics.ForcedChoices());
+        assertEquals(2, statistics.MaxDepth());
+        assertArrayEquals(new int[] { 0, 3, -1, -1 }, solution);
+
+        //Once row 1 is selected, column 1 has no rows left.
+        ExactCover contradiction = new ExactCover(4);
+        contradiction.AddRow(0, 0, 1);
+        contradiction.AddRow(1, 0, 2);
+        contradiction.AddRow(2, 1, 2);
+        contradiction.AddRow(3, 3);
+        contradiction.Select(1);
+        assertFalse(contradiction.Propagate());
+        assertEquals(0, contradiction.CountSolutions(2));
+    }
+
+    @Test
+    public void Bitsets()
+    {
+        //Dense matrices small enough for bitsets must give the solutions the links give, in the same order.
+        SplittableRandom random = new SplittableRandom(11);
+        for (int instance = 0; instance < 50; instance++)
+        {
+            int columns = 1 + random.nextInt(instance < 25 ? 12 : 90);
+            int rows = 1 + random.nextInt(instance < 25 ? 40 : 150);
+            byte[][] input = new byte[columns][rows];
+            for (int j = 0; j < rows; j++)
+            {
+                //Half the rows are pieces of one hidden partition, so larger instances still have solutions.
+                boolean piece = j % 2 == 0;
+                for (int i = 0; i < columns; i++)
+                {
+                    if (piece ? i % 8 == j % 16 / 2 : random.nextInt(6) == 0) input[i][j] = 1;
+                }
+            }
+            assertTrue(BitsetExactCover.Suits(input));
+
+            ExactCover links = new ExactCover(columns);
+            for (int j = 0; j < rows; j++)
+            {
+                int[] rowColumns = new int[columns];
+                int count = 0;
+                for (int i = 0; i < columns; i++) if (input[i][j] != 0) rowColumns[count++] = i;
+                links.AddRow(j, rowColumns, count);
+            }
+
+            List<HashSet<Integer>> expected = links.GetSolutions(1000);
+            if (expected.size() < 1000) assertEquals(expected, new ExactCover().GetAllSolutions(input));
+            assertEquals(links.MoreThanOneSolution(), new ExactCover().MoreThanOneSolution(input));
+            assertEquals(links.CheckExactlyOneSolution(), new ExactCover().CheckExactlyOneSolution(input));
+            if (!expected.isEmpty()) assertEquals(expected.get(0), new ExactCover().GetFirstSolution(input));
+        }
+
+        //Sparse large matrices stay on the links.
+        assertFalse(BitsetExactCover.Suits(new byte[324][729]));
+    }
+
+    //Knuth's example from the Dancing Links paper, whose only solution is rows 0, 3 and 4.
+    private static ExactCover SixRows()
+    {
+        ExactCover exactCover = new ExactCover(7);
+        exactCover.AddRow(0, 2, 4, 5);
+        exactCover.AddRow(1, 0, 3, 6);
+        exactCover.AddRow(2, 1, 2, 5);
+        exactCover.AddRow(3, 0, 3);
+        exactCover.AddRow(4, 1, 6);
+        exactCover.AddRow(5, 3, 4, 6);
+        return exactCover;
+    }
+
+    //Every pair of points is a row, so the solutions are the perfect matchings: 105 of them for 8 points.
+    private static ExactCover Matchings(int points)
+    {
+        ExactCover exactCover = new ExactCover(points);
+        int rowName = 0;
+        for (int a = 0; a < points; a++) for (int b = a + 1; b < points; b++) exactCover.AddRow(rowName++, a, b);
+        return exactCover;
+    }
+
+    //8 queens: every rank and file holds one queen, each diagonal at most one, so the diagonals are secondary.
+    private static ExactCover Queens()
+    {
+        ExactCover exactCover = new ExactCover(16, 30);
+        for (int rank = 0; rank < 8; rank++)
+        {
+            for (int file = 0; file < 8; file++)
+            {
+                exactCover.AddRow((rank * 8) + file, rank, 8 + file, 16 + rank + file, 31 + rank - file + 7);
+            }
+        }
+        return exactCover;
+    }
+}
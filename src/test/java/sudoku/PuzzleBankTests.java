@@ -0,0 +1,95 @@
+package sudoku;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PuzzleBankTests {
+    @Test
+    public void AddAndIndex(@TempDir Path directory) throws IOException
+    {
+        List<byte[][]> puzzles;
+        try (PuzzleGenerator generator = new PuzzleGenerator(BitboardEngine::new, 2))
+        {
+            puzzles = generator.Generate(12, 30, 5).collect(Collectors.toList());
+        }
+
+        Path path = directory.resolve("puzzles.bank");
+        byte[][] solution = new byte[9][9];
+        try (PuzzleBank bank = new PuzzleBank(path))
+        {
+            for (int p = 0; p < puzzles.size(); p++)
+            {
+                new BitboardEngine().Solve(puzzles.get(p), solution, 1);
+                assertEquals(p, bank.Add(puzzles.get(p), solution, p % 3));
+            }
+
+            //Records can be read before they are indexed, but not looked up by clues.
+            assertEquals(12, bank.Count());
+            assertEquals(0, bank.Count(30, 0, 255));
+            assertArrayEquals(puzzles.get(11), bank.Get(11).Puzzle);
+
+            bank.Index();
+            assertEquals(12, bank.Count(30, 0, 255));
+            assertEquals(4, bank.Count(30, 1, 1));
+            assertEquals(8, bank.Count(30, 1, 2));
+            assertEquals(0, bank.Count(29, 0, 255));
+            assertNull(bank.Random(29, 0, 255, new SplittableRandom(1)));
+        }
+
+        try (PuzzleBank bank = new PuzzleBank(path))
+        {
+            assertEquals(12, bank.IndexedCount());
+            PuzzleBank.Record record = bank.Get(30, 2, 2, 0);
+            assertEquals(2, record.Number);
+            assertEquals(30, record.Clues);
+            assertEquals(2, record.Difficulty);
+            assertArrayEquals(puzzles.get(2), record.Puzzle);
+            AssertSolution(record);
+
+            PuzzleBank.Record random = bank.Random(30, 0, 0, new SplittableRandom(1));
+            assertEquals(0, random.Number % 3);
+            assertArrayEquals(puzzles.get((int)random.Number), random.Puzzle);
+
+            //New records are only found by clues once the bank is indexed again.
+            bank.Add(puzzles.get(0), bank.Get(0).Solution, 7);
+            assertEquals(0, bank.Count(30, 7, 7));
+            bank.Index();
+            assertEquals(12, bank.Get(30, 7, 7, 0).Number);
+        }
+    }
+
+    @Test
+    public void Invalid(@TempDir Path directory) throws IOException
+    {
+        try (PuzzleBank bank = new PuzzleBank(directory.resolve("puzzles.bank")))
+        {
+            byte[][] solution = new byte[9][9];
+            assertThrows(IllegalArgumentException.class, () -> bank.Add(new byte[9][9], solution, 0));
+
+            new BitboardEngine().Solve(new byte[9][9], solution, 1);
+            byte[][] puzzle = new byte[9][9];
+            puzzle[0][0] = (byte)(solution[0][0] % 9 + 1);
+            assertThrows(IllegalArgumentException.class, () -> bank.Add(puzzle, solution, 0));
+            assertThrows(IllegalArgumentException.class, () -> bank.Add(new byte[9][9], solution, 256));
+            assertEquals(0, bank.Count());
+
+            bank.Add(new byte[9][9], solution, 0);
+            assertEquals(0, bank.Get(0).Clues);
+        }
+    }
+
+    private static void AssertSolution(PuzzleBank.Record record)
+    {
+        byte[][] solution = new byte[9][9];
+        assertEquals(1, new BitboardEngine().Solve(record.Puzzle, solution, 2));
+        assertArrayEquals(solution, record.Solution);
+    }
+}
@@ -0,0 +1,55 @@
+package sudoku;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PuzzleCodecTests {
+    private static final String Dotted = "8..........36......7..9.2...5...7.......457.....1...3...1....68..85...1..9....4..";
+
+    @Test
+    public void RoundTrip()
+    {
+        byte[] grid = PuzzleCodec.Parse(Dotted);
+        assertEquals(8, grid[0]);
+        assertEquals(0, grid[1]);
+        assertEquals(3, grid[11]);
+        assertEquals(Dotted, PuzzleCodec.Format(grid, 0, PuzzleCodec.Dots));
+        assertEquals(Dotted.replace('.', '0'), PuzzleCodec.Format(grid, 0, PuzzleCodec.Zeros));
+
+        byte[][] rows = PuzzleCodec.ParseGrid(Dotted);
+        for (int k = 0; k < 81; k++) assertEquals(grid[k], rows[k / 9][k % 9]);
+
+        //Lines and cells anywhere in the caller's arrays and buffers.
+        byte[] text = ("xx" + Dotted.replace('.', '0')).getBytes(StandardCharsets.US_ASCII);
+        byte[] cells = new byte[90];
+        assertTrue(PuzzleCodec.Parse(text, 2, cells, 9));
+        for (int k = 0; k < 81; k++) assertEquals(grid[k], cells[9 + k]);
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(100);
+        PuzzleCodec.Format(cells, 9, buffer, 10, PuzzleCodec.Dots);
+        assertEquals(0, buffer.position());
+        byte[] parsed = new byte[81];
+        assertTrue(PuzzleCodec.Parse(buffer, 10, parsed, 0));
+        assertArrayEquals(grid, parsed);
+        assertEquals('8', buffer.get(10));
+        assertEquals('.', buffer.get(11));
+    }
+
+    @Test
+    public void Invalid()
+    {
+        byte[] text = Dotted.replace('7', 'x').getBytes(StandardCharsets.US_ASCII);
+        assertFalse(PuzzleCodec.Parse(text, 0, new byte[81], 0));
+        assertFalse(PuzzleCodec.Parse(ByteBuffer.wrap(text), 0, new byte[81], 0));
+        text[20] = (byte)0xE9; //Not ASCII
+        assertFalse(PuzzleCodec.Parse(text, 0, new byte[81], 0));
+
+        assertThrows(IllegalArgumentException.class, () -> PuzzleCodec.Parse(Dotted.substring(1)));
+        assertThrows(IllegalArgumentException.class, () -> PuzzleCodec.Parse(Dotted.replace('7', ' ')));
+        assertThrows(IllegalArgumentException.class, () -> PuzzleCodec.Parse(Dotted.replace('7', '\u0137')));
+    }
+}
@@ -0,0 +1,32 @@
+package sudoku;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PuzzleGeneratorTests {
+
+    @Test
+    public void Generate()
+    {
+        try (PuzzleGenerator generator = new PuzzleGenerator(BitboardEngine::new, 3))
+        {
+            List<byte[][]> first = generator.Generate(6, 28, 42).collect(Collectors.toList());
+            List<byte[][]> second = generator.Generate(6, 28, 42).collect(Collectors.toList());
+
+            assertEquals(6, first.size());
+            for (int k = 0; k < first.size(); k++)
+            {
+                assertArrayEquals(first.get(k), second.get(k)); //Same master seed, same batch.
+
+                int clues = 0;
+                for (byte[] row : first.get(k)) for (byte value : row) if (value != 0) clues++;
+                assertEquals(28, clues);
+                new Sudoku().Solve(first.get(k)); //Throws unless the solution is unique.
+            }
+        }
+    }
+}
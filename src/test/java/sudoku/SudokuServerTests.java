@@ -0,0 +1,149 @@
+package sudoku;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SudokuServerTests {
+    private static final String Puzzle = "620310098000000010105802630082000000003009480510700020000051000030070059400203060";
+
+    private SudokuServer Server;
+
+    @BeforeEach
+    public void Start() throws IOException
+    {
+        Server = new SudokuServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1, 5000);
+        Server.Start();
+    }
+
+    @AfterEach
+    public void Stop()
+    {
+        Server.close();
+    }
+
+    @Test
+    public void Solve() throws Exception
+    {
+        Response response = Request("POST", "/solve", Puzzle);
+        assertEquals(200, response.Status);
+        assertEquals(Solve(Puzzle), response.Body);
+
+        assertEquals(422, Request("POST", "/solve", new String(new char[81]).replace('\0', '0')).Status);
+        assertEquals(400, Request("POST", "/solve", "11" + Puzzle.substring(2)).Status);
+        assertEquals(400, Request("POST", "/solve", "123").Status);
+        assertEquals(405, Request("GET", "/solve", null).Status);
+    }
+
+    @Test
+    public void Validate() throws Exception
+    {
+        assertEquals("unique", Request("POST", "/validate", Puzzle).Body);
+        assertEquals("multiple", Request("POST", "/validate", "0" + Puzzle.substring(1, 80) + "0").Body);
+    }
+
+    @Test
+    public void Generate() throws Exception
+    {
+        Response response = Request("GET", "/generate?clues=30&seed=7", null);
+        assertEquals(200, response.Status);
+        assertEquals(30, response.Body.replace("0", "").length());
+        assertEquals("unique", Request("POST", "/validate", response.Body).Body);
+        assertEquals(response.Body, Request("GET", "/generate?clues=30&seed=7", null).Body);
+        assertEquals(400, Request("GET", "/generate?clues=3", null).Status);
+    }
+
+    @Test
+    public void Generate_Timeout() throws Exception
+    {
+        //17 clues are all but unreachable by digging, the deadline answers and frees the generator.
+        Server.close();
+        Server = new SudokuServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1, 5000, 200);
+        Server.Start();
+
+        long start = System.nanoTime();
+        Response response = Request("GET", "/generate?clues=17&seed=1", null);
+        assertEquals(503, response.Status);
+        assertEquals("timeout", response.Body);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(200, Request("GET", "/generate?clues=30&seed=7", null).Status);
+    }
+
+    @Test
+    public void Concurrent() throws Exception
+    {
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        try
+        {
+            List<Future<Response>> responses = new ArrayList<>();
+            for (int k = 0; k < 64; k++) responses.add(clients.submit(() -> Request("POST", "/solve", Puzzle)));
+            for (Future<Response> response : responses) assertEquals(Solve(Puzzle), response.get().Body);
+        }
+        finally
+        {
+            clients.shutdown();
+        }
+
+        assertEquals(64, Server.Latency("/solve").Count());
+        String metrics = Request("GET", "/metrics", null).Body;
+        assertTrue(metrics.contains("/solve count=64"), metrics);
+    }
+
+    private static String Solve(String puzzle)
+    {
+        return PuzzleCodec.Format(new Sudoku().Solve(PuzzleCodec.Parse(puzzle)), 0, PuzzleCodec.Zeros);
+    }
+
+    private static class Response
+    {
+        final int Status;
+        final String Body;
+
+        Response(int status, String body)
+        {
+            Status = status;
+            Body = body;
+        }
+    }
+
+    private Response Request(String method, String path, String body) throws IOException
+    {
+        HttpURLConnection connection = (HttpURLConnection)new URL("http://127.0.0.1:" + Server.Port() + path).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null)
+        {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream())
+            {
+                out.write(body.getBytes(StandardCharsets.US_ASCII));
+            }
+        }
+
+        int status = connection.getResponseCode();
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream())
+        {
+            byte[] buffer = new byte[512];
+            for (int read; in != null && (read = in.read(buffer)) != -1; ) received.write(buffer, 0, read);
+        }
+        return new Response(status, new String(received.toByteArray(), StandardCharsets.US_ASCII).trim());
+    }
+}
@@ -4,6 +4,8 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.*;
+
 class SudokuTests {
     Sudoku Sudoku;
 
@@ -32,7 +34,18 @@ class SudokuTests {
             { 4, 0, 0, 2, 0, 3, 0, 6, 0 },
         };
 
-        Sudoku.Solve(input);
+        AssertSolves(input, Sudoku.Solve(input));
+    }
+
+    @Test
+    public void Statistics_Singles()
+    {
+        //Example_1 falls to singles alone, which are propagated before the search but still counted as forced.
+        byte[][] input = ToGrid(PuzzleCodec.Parse("620310098000000010105802630082000000003009480510700020000051000030070059400203060"), 0);
+        SearchStatistics statistics = new SearchStatistics();
+        assertEquals(1, new ExactCoverEngine(statistics).Solve(input, null, 2));
+        assertEquals(statistics.Nodes() - 1, statistics.ForcedChoices());
+        assertEquals(0, statistics.Backtracks());
     }
 
     @Test
@@ -51,19 +64,316 @@ class SudokuTests {
             { 0, 9, 0, 0, 0, 0, 4, 0, 0 },
         };
 
-        Sudoku.Solve(input);
+        AssertSolves(input, Sudoku.Solve(input));
+    }
+
+    @Test
+    public void Example_2_Bitboard()
+    {
+        byte[][] input =
+        {
+            { 8, 0, 0, 0, 0, 0, 0, 0, 0 },
+            { 0, 0, 3, 6, 0, 0, 0, 0, 0 },
+            { 0, 7, 0, 0, 9, 0, 2, 0, 0 },
+            { 0, 5, 0, 0, 0, 7, 0, 0, 0 },
+            { 0, 0, 0, 0, 4, 5, 7, 0, 0 },
+            { 0, 0, 0, 1, 0, 0, 0, 3, 0 },
+            { 0, 0, 1, 0, 0, 0, 0, 6, 8 },
+            { 0, 0, 8, 5, 0, 0, 0, 1, 0 },
+            { 0, 9, 0, 0, 0, 0, 4, 0, 0 },
+        };
+
+        byte[][] solution = new Sudoku(new BitboardEngine()).Solve(input);
+        AssertSolves(input, solution);
+        assertArrayEquals(Sudoku.Solve(input), solution);
+    }
+
+    @Test
+    public void Solve_Flat()
+    {
+        byte[] input = PuzzleCodec.Parse("8..........36......7..9.2...5...7.......457.....1...3...1....68..85...1..9....4..");
+        byte[][] expected = Sudoku.Solve(ToGrid(input, 0));
+
+        //Solved from and into the middle of larger buffers, by every engine.
+        SolverEngine[] engines = { new ExactCoverEngine(), new BitboardEngine(), new CachingEngine(new BitboardEngine(), new SolutionCache(4)) };
+        for (SolverEngine engine : engines)
+        {
+            byte[] puzzles = new byte[3 * 81];
+            System.arraycopy(input, 0, puzzles, 81, 81);
+            byte[] solutions = new byte[2 * 81];
+            new Sudoku(engine).Solve(puzzles, 81, solutions, 81, null);
+            assertArrayEquals(expected, ToGrid(solutions, 81));
+
+            //Offsets that leave fewer than 81 cells are refused before anything is read or written.
+            assertThrows(IllegalArgumentException.class, () -> engine.Solve(puzzles, 2 * 81 + 1, 9, solutions, 0, 2, null));
+            assertThrows(IllegalArgumentException.class, () -> engine.Solve(puzzles, 81, 9, solutions, 81 + 1, 2, null));
+            assertThrows(IllegalArgumentException.class, () -> new Sudoku(engine).Solve(puzzles, -1, solutions, 0, null));
+            assertThrows(IllegalArgumentException.class, () -> new Sudoku(engine).Solve(puzzles, 81, solutions, 81 + 1, null));
+        }
+        assertArrayEquals(expected, ToGrid(Sudoku.Solve(input), 0));
+        assertThrows(IllegalArgumentException.class, () -> Sudoku.Solve(new byte[81]));
+    }
+
+    @Test
+    public void Random_Flat()
+    {
+        byte[] grid = new byte[90];
+        new Sudoku(new ExactCoverEngine(), 7).GenerateRandomCompleteGrid(grid, 9);
+        assertArrayEquals(new Sudoku(new ExactCoverEngine(), 7).GenerateRandomCompleteGrid(), ToGrid(grid, 9));
+        assertThrows(IllegalArgumentException.class, () -> new Sudoku().GenerateRandomCompleteGrid(grid, 10));
+        assertThrows(IllegalArgumentException.class, () -> new Sudoku().GenerateRandomCompleteGrid(grid, -1));
+    }
+
+    @Test
+    public void DigPuzzle_Flat()
+    {
+        byte[] puzzle = new byte[100];
+        new Sudoku(new BitboardEngine(), 5).DigPuzzleWithClues(26, puzzle, 19);
+        assertEquals(26, Clues(puzzle, 19));
+        AssertSolves(ToGrid(puzzle, 19), Sudoku.Solve(ToGrid(puzzle, 19)));
+        assertThrows(IllegalArgumentException.class, () -> new Sudoku().DigPuzzleWithClues(26, puzzle, 20));
+        assertThrows(IllegalArgumentException.class, () -> new Sudoku().DigPuzzleWithClues(26, 1, 5, puzzle, -1));
+    }
+
+    @Test
+    public void GeneratePuzzle_Flat()
+    {
+        byte[] puzzle = new byte[100];
+        new Sudoku(new BitboardEngine(), 5).GeneratePuzzleWithClues(35, puzzle, 19);
+        assertEquals(35, Clues(puzzle, 19));
+        AssertSolves(ToGrid(puzzle, 19), Sudoku.Solve(ToGrid(puzzle, 19)));
+        assertThrows(IllegalArgumentException.class, () -> new Sudoku().GeneratePuzzleWithClues(35, puzzle, 20));
+    }
+
+    @Test
+    public void Budget()
+    {
+        byte[][] input = new byte[9][9];
+        input[0][0] = 8;
+
+        for (Sudoku sudoku : new Sudoku[] { Sudoku, new Sudoku(new BitboardEngine()) })
+        {
+            SearchStoppedException stopped = assertThrows(SearchStoppedException.class, () -> sudoku.Solve(input, SearchBudget.Nodes(10)));
+            assertEquals(SearchStatus.NodeBudgetExhausted, stopped.Status);
+            assertEquals(0, stopped.Solutions);
+
+            SearchBudget cancelled = new SearchBudget();
+            cancelled.Cancel();
+            assertEquals(SearchStatus.Cancelled, assertThrows(SearchStoppedException.class, () -> sudoku.Solve(input, cancelled)).Status);
+            assertThrows(IllegalArgumentException.class, () -> sudoku.Solve(input, SearchBudget.Nodes(1000)));
+        }
+    }
+
+    @Test
+    public void MultipleSolutions()
+    {
+        assertThrows(IllegalArgumentException.class, () -> Sudoku.Solve(new byte[9][9]));
+        assertThrows(IllegalArgumentException.class, () -> new Sudoku(new BitboardEngine()).Solve(new byte[9][9]));
+    }
+
+    @Test
+    public void ConflictingClues()
+    {
+        byte[][] input = new byte[9][9];
+        input[0][0] = 5;
+        input[0][8] = 5;
+
+        assertThrows(IllegalArgumentException.class, () -> Sudoku.Solve(input));
+    }
+
+    @Test
+    public void RaggedGrid()
+    {
+        byte[][] input = new byte[9][9];
+        input[4] = new byte[8];
+
+        assertThrows(IllegalArgumentException.class, () -> Sudoku.Solve(input));
+        assertThrows(IllegalArgumentException.class, () -> new Sudoku(new BitboardEngine()).Solve(input));
     }
 
     @Test
     public void Random()
     {
-        Sudoku.GenerateRandomCompleteGrid();
+        AssertSolves(new byte[9][9], Sudoku.GenerateRandomCompleteGrid());
+    }
+
+    @Test
+    public void Random_Seeded()
+    {
+        byte[][] grid = new Sudoku(new ExactCoverEngine(), 7).GenerateRandomCompleteGrid();
+        AssertSolves(new byte[9][9], grid);
+        assertArrayEquals(grid, new Sudoku(new ExactCoverEngine(), 7).GenerateRandomCompleteGrid());
     }
 
     @Test
     public void GeneratePuzzle()
     {
-        Sudoku.GeneratePuzzleWithClues(30);//3,26,197 attempts
-        //Sudoku.GeneratePuzzleWithClues(28); //947
+        byte[][] puzzle = Sudoku.GeneratePuzzleWithClues(30);
+        AssertSolves(puzzle, Sudoku.Solve(puzzle)); //Solve throws unless the solution is unique.
+        assertThrows(IllegalArgumentException.class, () -> Sudoku.GeneratePuzzleWithClues(16));
+    }
+
+    @Test
+    public void DigPuzzle()
+    {
+        byte[][] puzzle = Sudoku.DigPuzzleWithClues(24);
+
+        int clues = 0;
+        for (byte[] row : puzzle) for (byte value : row) if (value != 0) clues++;
+        assertEquals(24, clues);
+        AssertSolves(puzzle, Sudoku.Solve(puzzle)); //Solve throws unless the solution is unique.
+    }
+
+    @Test
+    public void DigPuzzle_Difficulty()
+    {
+        Sudoku sudoku = new Sudoku(new BitboardEngine(), 3);
+        byte[][] puzzle = sudoku.DigPuzzleWithClues(24, 40, 255);
+        assertTrue(DifficultyRater.Rate(puzzle).Level >= 40);
+        AssertSolves(puzzle, sudoku.Solve(puzzle));
+
+        assertThrows(IllegalStateException.class,
+            () -> new Sudoku(3, new ExactCoverEngine(Constraints.Classic(Constraints.Diagonals()))).DigPuzzleWithClues(24, 0, 10));
+    }
+
+    @Test
+    public void Sixteen()
+    {
+        Sudoku sixteen = new Sudoku(4);
+        byte[][] puzzle = sixteen.DigPuzzleWithClues(160);
+        AssertSolves(puzzle, sixteen.Solve(puzzle));
+    }
+
+    @Test
+    public void TwentyFive()
+    {
+        AssertSolves(new byte[25][25], new Sudoku(5).GenerateRandomCompleteGrid());
+    }
+
+    @Test
+    public void XSudoku()
+    {
+        byte[][] grid = new Sudoku(3, new ExactCoverEngine(Constraints.Classic(Constraints.Diagonals()))).GenerateRandomCompleteGrid();
+        AssertSolves(new byte[9][9], grid);
+        for (int i = 0; i < 9; i++)
+        {
+            for (int k = i + 1; k < 9; k++)
+            {
+                assertNotEquals(grid[i][i], grid[k][k]);
+                assertNotEquals(grid[i][8 - i], grid[k][8 - k]);
+            }
+        }
+    }
+
+    @Test
+    public void Windoku()
+    {
+        byte[][] grid = new Sudoku(3, new ExactCoverEngine(Constraints.Classic(Constraints.Windows()))).GenerateRandomCompleteGrid();
+        AssertSolves(new byte[9][9], grid);
+        for (int top : new int[] { 1, 5 })
+        {
+            for (int left : new int[] { 1, 5 })
+            {
+                boolean[] seen = new boolean[10];
+                for (int k = 0; k < 9; k++)
+                {
+                    byte value = grid[top + k / 3][left + k % 3];
+                    assertFalse(seen[value]);
+                    seen[value] = true;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void AntiKnight()
+    {
+        byte[][] grid =
+        {
+            { 7, 8, 6, 1, 3, 9, 4, 2, 5 },
+            { 5, 2, 4, 6, 7, 8, 9, 3, 1 },
+            { 1, 3, 9, 4, 2, 5, 8, 7, 6 },
+            { 6, 1, 3, 8, 5, 2, 7, 4, 9 },
+            { 9, 4, 8, 3, 6, 7, 1, 5, 2 },
+            { 2, 7, 5, 9, 4, 1, 3, 6, 8 },
+            { 8, 6, 7, 5, 1, 3, 2, 9, 4 },
+            { 4, 9, 2, 7, 8, 6, 5, 1, 3 },
+            { 3, 5, 1, 2, 9, 4, 6, 8, 7 },
+        };
+        Sudoku antiKnight = new Sudoku(3, new ExactCoverEngine(Constraints.Classic(Constraints.AntiKnight())));
+
+        byte[][] puzzle = new byte[9][9];
+        for (int i = 0; i < 9; i++) puzzle[i] = grid[i].clone();
+        for (int i = 0; i < 9; i++) puzzle[i][(i * 4) % 9] = 0;
+        assertArrayEquals(grid, antiKnight.Solve(puzzle));
+
+        //Two 5s a knight's move apart.
+        byte[][] clash = new byte[9][9];
+        clash[0][0] = 5;
+        clash[1][2] = 5;
+        assertThrows(IllegalArgumentException.class, () -> antiKnight.Solve(clash));
+    }
+
+    @Test
+    public void Jigsaw()
+    {
+        //Broken diagonals as regions.
+        byte[][] regions = new byte[9][9];
+        for (int i = 0; i < 9; i++) for (int j = 0; j < 9; j++) regions[i][j] = (byte)((i + j) % 9);
+        Constraint[] constraints = { Constraints.Cell(), Constraints.Row(), Constraints.Column(), Constraints.Jigsaw(regions) };
+
+        //Changing the caller's array afterwards leaves the constraint as it was built.
+        regions[0][0] = Byte.MAX_VALUE;
+        byte[][] grid = new Sudoku(3, new ExactCoverEngine(constraints)).GenerateRandomCompleteGrid();
+        for (int region = 0; region < 9; region++)
+        {
+            boolean[] seen = new boolean[10];
+            for (int i = 0; i < 9; i++)
+            {
+                int value = grid[i][(region - i + 9) % 9];
+                assertFalse(seen[value]);
+                seen[value] = true;
+            }
+        }
+
+        regions[0][0] = 1;
+        assertThrows(IllegalArgumentException.class, () -> Constraints.Jigsaw(regions));
+    }
+
+    private static int Clues(byte[] cells, int offset)
+    {
+        int clues = 0;
+        for (int k = offset; k < offset + 81; k++) if (cells[k] != 0) clues++;
+        return clues;
+    }
+
+    private static byte[][] ToGrid(byte[] cells, int offset)
+    {
+        byte[][] grid = new byte[9][9];
+        for (int i = 0; i < 9; i++) System.arraycopy(cells, offset + (i * 9), grid[i], 0, 9);
+        return grid;
+    }
+
+    private static void AssertSolves(byte[][] puzzle, byte[][] solution)
+    {
+        int size = puzzle.length;
+        int boxSize = (int)Math.sqrt(size);
+        for (int i = 0; i < size; i++)
+        {
+            for (int j = 0; j < size; j++)
+            {
+                if (puzzle[i][j] != 0) assertEquals(puzzle[i][j], solution[i][j]);
+                assertTrue(solution[i][j] >= 1 && solution[i][j] <= size);
+
+                for (int k = 0; k < size; k++)
+                {
+                    if (k != j) assertNotEquals(solution[i][j], solution[i][k]);
+                    if (k != i) assertNotEquals(solution[i][j], solution[k][j]);
+                    int boxRow = (i / boxSize) * boxSize + k / boxSize;
+                    int boxColumn = (j / boxSize) * boxSize + k % boxSize;
+                    if (boxRow != i || boxColumn != j) assertNotEquals(solution[i][j], solution[boxRow][boxColumn]);
+                }
+            }
+        }
     }
-}
\ No newline at end of file
+}